@@ -0,0 +1,147 @@
+package com.xeno.crm_backend.config;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.xeno.crm_backend.logging.SamplingFilter;
+import com.xeno.crm_backend.util.JwtUtil;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+
+/**
+ * Throughput of an authenticated request through JwtAuthenticationFilter with the
+ * logging set up like logback-spring.xml (async appender, sampling), against the
+ * same filter plus the five System.out lines it used to print per request. Both
+ * write to /dev/null, so the println numbers are a lower bound for a real console.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET =
+            "crm-jwt-secret-key-must-be-at-least-256-bits-long-for-hs256-algorithm-security-2024";
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        /** Level of the filter's logger; DEBUG turns on the per-request line. */
+        @Param({"INFO", "DEBUG"})
+        public String level;
+
+        JwtAuthenticationFilter filter;
+        String token;
+        PrintStream legacyOut;
+        AsyncAppender async;
+
+        @Setup
+        public void setUp() throws IOException {
+            JwtUtil jwtUtil = new JwtUtil(SECRET, 864000L, 10_000);
+            filter = new JwtAuthenticationFilter();
+            ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+            token = jwtUtil.generateToken("asha@example.com", "Asha", "https://example.com/a.png");
+            legacyOut = new PrintStream(new FileOutputStream("/dev/null"), true);
+
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            context.reset();
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d %5p %t %logger{39} : %m%n");
+            encoder.start();
+            OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+            sink.setContext(context);
+            sink.setEncoder(encoder);
+            sink.setOutputStream(new FileOutputStream("/dev/null"));
+            sink.start();
+
+            SamplingFilter sampling = new SamplingFilter();
+            sampling.setLoggerPrefix(JwtAuthenticationFilter.class.getName());
+            sampling.setLevel("INFO");
+            sampling.setKeepOneIn(100);
+            sampling.start();
+            async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addFilter(sampling);
+            async.addAppender(sink);
+            async.start();
+
+            ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+            root.setLevel(ch.qos.logback.classic.Level.INFO);
+            root.addAppender(async);
+            context.getLogger(JwtAuthenticationFilter.class).setLevel(ch.qos.logback.classic.Level.toLevel(level));
+        }
+
+        @TearDown
+        public void tearDown() {
+            async.stop();
+            legacyOut.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+        MockHttpServletRequest request;
+
+        @Setup(Level.Invocation)
+        public void setUp(Shared shared) {
+            SecurityContextHolder.clearContext();
+            request = new MockHttpServletRequest("GET", "/api/campaigns");
+            request.addHeader("Authorization", "Bearer " + shared.token);
+        }
+    }
+
+    @Benchmark
+    public Object structuredLogging(Shared shared, Request request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        shared.filter.doFilter(request.request, response, new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /** The filter plus the System.out lines the previous version printed on a successful request. */
+    @Benchmark
+    public Object printlnPerRequest(Shared shared, Request request) throws Exception {
+        MockHttpServletRequest req = request.request;
+        String authHeader = req.getHeader("Authorization");
+        shared.legacyOut.println("JWT Filter - Request: " + req.getMethod() + " " + req.getRequestURI());
+        shared.legacyOut.println("JWT Filter - Authorization header: " + (authHeader != null ? "Present" : "Not present"));
+        shared.legacyOut.println("JWT Filter - Token extracted, length: " + (authHeader.length() - 7));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        shared.filter.doFilter(req, response, new MockFilterChain());
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        shared.legacyOut.println("JWT Filter - Email extracted: " + email);
+        shared.legacyOut.println("JWT Filter - Authentication successful for: " + email);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,119 @@
+package com.xeno.crm_backend.delivery;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xeno.crm_backend.config.HttpClientConfig;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Vendor batch round trips against a local stub vendor: the previous
+ * per-component {@link RestTemplate} (blocking HttpURLConnection, whole response
+ * bound into a Map) versus {@link VendorClient} on the shared JDK HttpClient.
+ * Results are requests/sec for the whole JVM; divide by
+ * {@code Runtime.availableProcessors()} for requests/sec per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class VendorClientBenchmark {
+
+    private static final int BATCH = 100;
+
+    private HttpServer vendor;
+    private ExecutorService vendorExecutor;
+    private HttpClient httpClient;
+    private VendorClient vendorClient;
+    private RestTemplate restTemplate;
+    private String url;
+    private List<String> customerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Without TCP_NODELAY the stub's small responses stall on delayed ACKs and both clients measure that instead.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        vendorExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        vendor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        vendor.createContext("/vendor/send/batch", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            byte[] body = ("{\"sent\":" + BATCH + ",\"failed\":0,\"results\":[]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        vendor.setExecutor(vendorExecutor);
+        vendor.start();
+        url = "http://127.0.0.1:" + vendor.getAddress().getPort() + "/vendor/send/batch";
+
+        // The stub speaks HTTP/1.1 only, so both sides share the same protocol and the difference is pooling and parsing.
+        httpClient = new HttpClientConfig().vendorHttpClient(HttpClient.Version.HTTP_1_1, 2000);
+        vendorClient = new VendorClient();
+        ReflectionTestUtils.setField(vendorClient, "vendorHttpClient", httpClient);
+        ReflectionTestUtils.setField(vendorClient, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(vendorClient, "vendorUrl", url);
+        ReflectionTestUtils.setField(vendorClient, "requestTimeoutMillis", 10_000L);
+        restTemplate = new RestTemplate();
+
+        customerIds = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            customerIds.add("customer-" + i);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object restTemplate() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("campaignId", "campaign-1");
+        body.put("customerIds", customerIds);
+        return restTemplate.postForObject(url, body, Map.class);
+    }
+
+    @Benchmark
+    public VendorClient.BatchResult sharedHttpClient() {
+        return vendorClient.send("campaign-1", customerIds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        vendor.stop(0);
+        vendorExecutor.close();
+    }
+}
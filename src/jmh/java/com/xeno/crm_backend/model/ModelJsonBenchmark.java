@@ -0,0 +1,72 @@
+package com.xeno.crm_backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** JSON (de)serialization of the models returned by the campaign and log endpoints. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private Campaign campaign;
+    private CommunicationLog communicationLog;
+    private String campaignJson;
+    private String communicationLogJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // Same defaults Spring MVC applies to the application's ObjectMapper.
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        campaign = new Campaign("Win back high spenders", List.of(
+                Map.of("field", "totalSpend", "operator", ">", "value", 10000),
+                Map.of("field", "lastSeen", "operator", "olderThanDays", "value", 90, "condition", "AND")),
+                48213, LocalDateTime.now());
+        campaign.setId("6650c0ffee0000000000abcd");
+        communicationLog = new CommunicationLog("6650c0ffee0000000000abcd", "6650c0ffee0000000000beef",
+                "SENT", LocalDateTime.now());
+        campaignJson = mapper.writeValueAsString(campaign);
+        communicationLogJson = mapper.writeValueAsString(communicationLog);
+    }
+
+    @Benchmark
+    public String writeCampaign() throws JsonProcessingException {
+        return mapper.writeValueAsString(campaign);
+    }
+
+    @Benchmark
+    public Campaign readCampaign() throws JsonProcessingException {
+        return mapper.readValue(campaignJson, Campaign.class);
+    }
+
+    @Benchmark
+    public String writeCommunicationLog() throws JsonProcessingException {
+        return mapper.writeValueAsString(communicationLog);
+    }
+
+    @Benchmark
+    public CommunicationLog readCommunicationLog() throws JsonProcessingException {
+        return mapper.readValue(communicationLogJson, CommunicationLog.class);
+    }
+}
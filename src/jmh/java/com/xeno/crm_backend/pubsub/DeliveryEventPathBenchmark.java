@@ -0,0 +1,121 @@
+package com.xeno.crm_backend.pubsub;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.xeno.crm_backend.model.CommunicationLog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Vendor receipt to stored communication log: {@link EventPublisher} into the
+ * partitioned {@link DeliveryEventBus}, through {@link DeliveryEventListener}
+ * and the {@link CommunicationLogWriter} buffer, into an in-memory stand-in for
+ * Mongo bulk inserts. Each invocation publishes one vendor batch and waits
+ * until every event in it has been stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeliveryEventPathBenchmark {
+
+    private static final int BATCH = 500;
+
+    private final AtomicLong stored = new AtomicLong();
+    private DeliveryEventBus bus;
+    private CommunicationLogWriter writer;
+    private EventPublisher publisher;
+    private List<DeliveryEvent> events;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CommunicationLog.class)))
+                .thenAnswer(invocation -> inMemoryBulkOperations());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        writer = new CommunicationLogWriter(mongoTemplate, registry, 100_000, 1000, 1, 50, 5, 100);
+        writer.start();
+        DeliveryEventListener listener = new DeliveryEventListener(writer, registry);
+        bus = new DeliveryEventBus(List.of(listener), registry, 0, 65_536, 512, DeliveryEventBus.OverflowPolicy.BLOCK);
+        bus.start();
+        publisher = new EventPublisher(bus);
+
+        events = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            events.add(new DeliveryEvent("campaign-" + (i % 8), "customer-" + i, i % 10 == 0 ? "FAILED" : "SENT"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long publishToStored() {
+        expected += BATCH;
+        publisher.publishAll(events);
+        while (stored.get() < expected) {
+            Thread.onSpinWait();
+        }
+        return stored.get();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        bus.shutdown();
+        writer.shutdown();
+    }
+
+    /** Counts inserted documents instead of sending them anywhere. */
+    private BulkOperations inMemoryBulkOperations() {
+        List<Object> inserted = new ArrayList<>();
+        return (BulkOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {BulkOperations.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "insert" -> {
+                            if (args[0] instanceof Collection<?> docs) {
+                                inserted.addAll(docs);
+                            } else {
+                                inserted.add(args[0]);
+                            }
+                            return proxy;
+                        }
+                        case "execute" -> {
+                            stored.addAndGet(inserted.size());
+                            inserted.clear();
+                            return null;
+                        }
+                        default -> {
+                            return proxy;
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.xeno.crm_backend.util;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Token issue and the per-request verification done by the JWT authentication filter:
+ * the old four-parse path against the single cached {@link JwtUtil#verify}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET =
+            "crm-jwt-secret-key-must-be-at-least-256-bits-long-for-hs256-algorithm-security-2024";
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 864000L, 10_000);
+        uncached = new JwtUtil(SECRET, 864000L, 0);
+        token = jwtUtil.generateToken("asha@example.com", "Asha", "https://example.com/a.png");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("asha@example.com", "Asha", "https://example.com/a.png");
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return jwtUtil.extractEmail(token);
+    }
+
+    /**
+     * What JwtAuthenticationFilter used to do for every authenticated request: extractEmail,
+     * validateToken, isTokenExpired and extractClaims, each rebuilding the key and parser.
+     */
+    @Benchmark
+    public Object filterPathBefore() {
+        String email = legacyParse(token).getSubject();
+        if (email != null && legacyParse(token) != null && !legacyParse(token).getExpiration().before(new Date())) {
+            return legacyParse(token);
+        }
+        return null;
+    }
+
+    /** The filter's single verification for a token it has seen before. */
+    @Benchmark
+    public Claims filterPathCached() {
+        return jwtUtil.verify(token);
+    }
+
+    /** A first request with a token: one hash plus one signature check and parse. */
+    @Benchmark
+    public Claims filterPathFirstSeen() {
+        return uncached.verify(token);
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,212 @@
+package com.xeno.crm_backend.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.xeno.crm_backend.CrmBackendApplication;
+import com.xeno.crm_backend.util.JwtUtil;
+
+/**
+ * End-to-end load test: starts a throwaway local {@code mongod} (or uses
+ * {@code loadtest.mongo-uri}), fills it with synthetic customers and orders,
+ * boots the application against it on a free port and drives an open-loop mix
+ * of segment filters, campaign deliveries and delivery receipts. Per-endpoint
+ * throughput and p50/p99/p99.9 latencies are printed and written as JSON.
+ *
+ * <p>Run with {@code mvn -Ploadtest verify}; every {@code loadtest.*} setting is a
+ * system property (see the {@code loadtest} profile in the pom for defaults).
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long customers = Long.getLong("loadtest.customers", 1_000_000);
+        double ordersPerCustomer = Double.parseDouble(System.getProperty("loadtest.orders-per-customer", "3"));
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 15));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60));
+        Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "filter=70,receipt=25,deliver=5"));
+        long seed = Long.getLong("loadtest.seed", 42);
+        Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        String mongoUri = System.getProperty("loadtest.mongo-uri", "");
+        String database = "xeno_loadtest";
+
+        LocalMongod mongod = null;
+        if (mongoUri.isBlank()) {
+            mongod = LocalMongod.start(System.getProperty("loadtest.mongod", "mongod"), Duration.ofSeconds(60));
+            mongoUri = mongod.uri(database);
+            System.out.println("Started mongod at " + mongoUri);
+        }
+        try {
+            List<String> customerIds;
+            try (MongoClient client = MongoClients.create(mongoUri)) {
+                client.getDatabase(database).drop();
+                customerIds = new SyntheticData(seed).populate(client.getDatabase(database), customers,
+                        ordersPerCustomer);
+            }
+
+            int port = LocalMongod.freePort();
+            String baseUrl = "http://127.0.0.1:" + port;
+            ConfigurableApplicationContext app = SpringApplication.run(CrmBackendApplication.class,
+                    "--server.port=" + port,
+                    "--spring.data.mongodb.uri=" + mongoUri,
+                    "--spring.data.mongodb.database=" + database,
+                    "--spring.security.oauth2.client.registration.google.client-id=loadtest",
+                    "--spring.security.oauth2.client.registration.google.client-secret=loadtest",
+                    "--delivery.vendor-url=" + baseUrl + "/vendor/send/batch",
+                    "--delivery.journal.dir=target/loadtest-journal",
+                    "--logging.level.root=WARN");
+            try {
+                String token = app.getBean(JwtUtil.class)
+                        .generateToken("loadtest@example.com", "Load Test", "");
+                List<OpenLoopDriver.Endpoint> endpoints = new ArrayList<>();
+                List<Integer> weights = new ArrayList<>();
+                mix.forEach((name, weight) -> {
+                    endpoints.add(endpoint(name, customerIds));
+                    weights.add(weight);
+                });
+
+                System.out.printf("Offering %.0f req/s for %ds (+%ds warmup), mix %s%n",
+                        rate, duration.toSeconds(), warmup.toSeconds(), mix);
+                Map<String, OpenLoopDriver.Result> results = new OpenLoopDriver(baseUrl, token, Duration.ofSeconds(30))
+                        .run(endpoints, weights.stream().mapToInt(Integer::intValue).toArray(), rate, warmup,
+                                duration, seed);
+                report(results, duration, customers, rate, report);
+            } finally {
+                app.close();
+            }
+        } finally {
+            if (mongod != null) {
+                mongod.close();
+            }
+        }
+    }
+
+    private static OpenLoopDriver.Endpoint endpoint(String name, List<String> customerIds) {
+        return switch (name) {
+            // Mostly broad segments, like the campaign builder's audience preview.
+            case "filter" -> new OpenLoopDriver.Endpoint(name, "/api/customers/filter", true,
+                    random -> json(filterRules(random)));
+            // Narrow segments so each delivery job stays short and jobs do not pile up.
+            case "deliver" -> new OpenLoopDriver.Endpoint(name, "/api/campaigns/deliver", true,
+                    random -> json(Map.of(
+                            "campaignId", "loadtest-" + random.nextInt(1000),
+                            "rules", List.of(
+                                    rule("totalSpend", ">", 20_000 + random.nextInt(30_000), null),
+                                    rule("visits", ">", 12 + random.nextInt(10), "AND")))));
+            case "receipt" -> new OpenLoopDriver.Endpoint(name, "/api/delivery-receipt", false,
+                    random -> json(Map.of(
+                            "campaignId", "loadtest-" + random.nextInt(1000),
+                            "customerId", customerIds.get(random.nextInt(customerIds.size())),
+                            "status", random.nextInt(10) == 0 ? "FAILED" : "SENT")));
+            default -> throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + name);
+        };
+    }
+
+    private static List<Map<String, Object>> filterRules(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> List.of(rule("totalSpend", ">", 1000 * (1 + random.nextInt(20)), null));
+            case 1 -> List.of(rule("visits", ">", 1 + random.nextInt(8), null),
+                    rule("totalSpend", "<", 5000 + random.nextInt(20_000), "AND"));
+            case 2 -> List.of(rule("lastSeen", "olderThanDays", 30 + random.nextInt(300), null));
+            default -> List.of(rule("lastSeen", "withinLastDays", 7 + random.nextInt(60), null),
+                    rule("visits", ">", 3, "OR"));
+        };
+    }
+
+    private static Map<String, Object> rule(String field, String operator, Object value, String condition) {
+        Map<String, Object> rule = new LinkedHashMap<>();
+        rule.put("field", field);
+        rule.put("operator", operator);
+        rule.put("value", value);
+        rule.put("condition", condition);
+        return rule;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix entries look like name=weight: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                weights.put(kv[0].trim(), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights");
+        }
+        return weights;
+    }
+
+    private static void report(Map<String, OpenLoopDriver.Result> results, Duration duration, long customers,
+                               double rate, Path file) throws IOException {
+        System.out.printf("%n%-8s %9s %9s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        results.forEach((name, result) -> {
+            long count = result.latency.getTotalCount();
+            double throughput = count / (double) duration.toSeconds();
+            double p50 = millis(result.latency.getValueAtPercentile(50));
+            double p99 = millis(result.latency.getValueAtPercentile(99));
+            double p999 = millis(result.latency.getValueAtPercentile(99.9));
+            double max = millis(result.latency.getMaxValue());
+            System.out.printf("%-8s %9d %9.1f %7d %10.2f %10.2f %10.2f %10.2f%n",
+                    name, count, throughput, result.errors.sum(), p50, p99, p999, max);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requests", count);
+            entry.put("throughputPerSecond", throughput);
+            entry.put("errors", result.errors.sum());
+            entry.put("timeouts", result.timeouts.sum());
+            entry.put("p50Ms", p50);
+            entry.put("p99Ms", p99);
+            entry.put("p999Ms", p999);
+            entry.put("maxMs", max);
+            endpoints.put(name, entry);
+        });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("customers", customers);
+        summary.put("offeredRatePerSecond", rate);
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("endpoints", endpoints);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        JSON.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), summary);
+        System.out.println("\nReport written to " + file.toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String json(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
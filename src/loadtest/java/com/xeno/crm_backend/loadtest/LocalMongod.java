@@ -0,0 +1,89 @@
+package com.xeno.crm_backend.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Throwaway {@code mongod} for a load test run: a local binary started on a
+ * free loopback port with a temporary data directory, so nothing is downloaded
+ * and the run works offline. The data directory is removed on close.
+ */
+final class LocalMongod implements AutoCloseable {
+
+    private final Process process;
+    private final Path dataDir;
+    private final int port;
+
+    private LocalMongod(Process process, Path dataDir, int port) {
+        this.process = process;
+        this.dataDir = dataDir;
+        this.port = port;
+    }
+
+    static LocalMongod start(String binary, Duration startupTimeout) throws IOException, InterruptedException {
+        Path dataDir = Files.createTempDirectory("crm-loadtest-mongod");
+        int port = freePort();
+        Process process = new ProcessBuilder(List.of(binary,
+                "--dbpath", dataDir.toString(),
+                "--port", String.valueOf(port),
+                "--bind_ip", "127.0.0.1",
+                "--quiet"))
+                .redirectErrorStream(true)
+                .redirectOutput(dataDir.resolve("mongod.log").toFile())
+                .start();
+
+        long deadline = System.nanoTime() + startupTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("mongod exited with " + process.exitValue()
+                        + ", see " + dataDir.resolve("mongod.log"));
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 200);
+                return new LocalMongod(process, dataDir, port);
+            } catch (IOException notYet) {
+                Thread.sleep(100);
+            }
+        }
+        process.destroyForcibly();
+        throw new IllegalStateException("mongod did not accept connections within " + startupTimeout);
+    }
+
+    String uri(String database) {
+        return "mongodb://127.0.0.1:" + port + "/" + database;
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, java.util.concurrent.TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not remove " + dataDir + ": " + e.getMessage());
+        }
+    }
+}
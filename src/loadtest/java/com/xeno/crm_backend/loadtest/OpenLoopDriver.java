@@ -0,0 +1,125 @@
+package com.xeno.crm_backend.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-loop request generator. Start times are drawn up front from a Poisson
+ * process at the target rate and requests are fired at those times whether or
+ * not earlier ones have completed, so a slow server does not slow the offered
+ * load down. Latency is measured from the intended start time rather than the
+ * actual send time, which keeps queueing delay in the numbers (no coordinated
+ * omission).
+ */
+final class OpenLoopDriver {
+
+    /** One request type in the mix; {@code body} builds a fresh JSON payload per request. */
+    record Endpoint(String name, String path, boolean authenticated, Function<SplittableRandom, String> body) {
+    }
+
+    /** Per-endpoint results; latencies are recorded in microseconds. */
+    static final class Result {
+        final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String bearerToken;
+    private final Duration requestTimeout;
+
+    OpenLoopDriver(String baseUrl, String bearerToken, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl;
+        this.bearerToken = bearerToken;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Offers {@code ratePerSecond} requests per second for {@code warmup + duration}, choosing
+     * endpoints by {@code weights}. Only requests scheduled after the warmup are recorded.
+     */
+    Map<String, Result> run(List<Endpoint> endpoints, int[] weights, double ratePerSecond,
+                            Duration warmup, Duration duration, long seed) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        endpoints.forEach(e -> results.put(e.name(), new Result()));
+        int totalWeight = 0;
+        for (int w : weights) {
+            totalWeight += w;
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Phaser outstanding = new Phaser(1);
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long intended = start;
+        while (true) {
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int pick = random.nextInt(totalWeight);
+            int i = 0;
+            while (pick >= weights[i]) {
+                pick -= weights[i++];
+            }
+            Endpoint endpoint = endpoints.get(i);
+            Result result = intended >= recordFrom ? results.get(endpoint.name()) : null;
+            long intendedStart = intended;
+
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.path()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(endpoint.body().apply(random)));
+            if (endpoint.authenticated()) {
+                request.header("Authorization", "Bearer " + bearerToken);
+            }
+            outstanding.register();
+            client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (result != null) {
+                            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                            result.latency.recordValue(Math.min(micros, result.latency.getHighestTrackableValue()));
+                            if (error != null) {
+                                if (error.getCause() instanceof java.net.http.HttpTimeoutException) {
+                                    result.timeouts.increment();
+                                }
+                                result.errors.increment();
+                            } else if (response.statusCode() >= 400) {
+                                result.errors.increment();
+                            }
+                        }
+                        outstanding.arriveAndDeregister();
+                    });
+        }
+        outstanding.arriveAndAwaitAdvance();
+        return results;
+    }
+}
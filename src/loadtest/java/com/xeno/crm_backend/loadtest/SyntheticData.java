@@ -0,0 +1,121 @@
+package com.xeno.crm_backend.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+
+/**
+ * Generates customers and their orders with skewed, CRM-like distributions:
+ * log-normal order values, a geometric number of orders per customer (most buy
+ * once or twice, a long tail buys often) and exponentially distributed recency,
+ * so rules on spend, visits and last-seen select realistic fractions of the
+ * base. Customer aggregates are derived from the generated orders, and a fixed
+ * seed makes runs repeatable.
+ */
+final class SyntheticData {
+
+    private static final String[] FIRST = {"Asha", "Rahul", "Priya", "Vikram", "Neha", "Arjun", "Kavya", "Rohan",
+            "Isha", "Dev", "Meera", "Kabir", "Ananya", "Aditya", "Sara", "Nikhil"};
+    private static final String[] LAST = {"Sharma", "Iyer", "Patel", "Reddy", "Khan", "Singh", "Das", "Menon",
+            "Gupta", "Rao", "Nair", "Joshi"};
+    private static final String[] ITEMS = {"sneakers", "t-shirt", "jeans", "jacket", "watch", "backpack",
+            "headphones", "sunglasses", "kurta", "saree", "perfume", "wallet"};
+    private static final int BATCH = 10_000;
+
+    private final SplittableRandom random;
+    private final Instant now = Instant.now();
+
+    SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /** Inserts {@code customers} customers and returns the ids of a sample of them for request generation. */
+    List<String> populate(MongoDatabase database, long customers, double meanOrdersPerCustomer) {
+        MongoCollection<Document> customerCollection = database.getCollection("customers");
+        MongoCollection<Document> orderCollection = database.getCollection("orders");
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+        double continueProbability = 1 - 1 / Math.max(1.0, meanOrdersPerCustomer);
+
+        List<String> sample = new ArrayList<>();
+        List<Document> customerBatch = new ArrayList<>(BATCH);
+        List<Document> orderBatch = new ArrayList<>(BATCH);
+        long started = System.nanoTime();
+        long orders = 0;
+        for (long i = 0; i < customers; i++) {
+            ObjectId id = new ObjectId();
+            String customerId = id.toHexString();
+            if (sample.size() < 10_000) {
+                sample.add(customerId);
+            }
+
+            int visits = 1;
+            while (random.nextDouble() < continueProbability && visits < 500) {
+                visits++;
+            }
+            // Mean recency of ~120 days, capped at two years.
+            long lastSeenDaysAgo = Math.min(730, (long) (-Math.log(1 - random.nextDouble()) * 120));
+            Instant lastSeen = now.minus(Duration.ofDays(lastSeenDaysAgo)).minusSeconds(random.nextInt(86_400));
+            double totalSpend = 0;
+            for (int v = 0; v < visits; v++) {
+                double amount = Math.round(Math.exp(7.0 + 0.8 * gaussian()) * 100) / 100.0;
+                totalSpend += amount;
+                Instant orderDate = v == 0 ? lastSeen
+                        : lastSeen.minus(Duration.ofDays(random.nextInt(1, 730)));
+                orderBatch.add(new Document("customerid", customerId)
+                        .append("amount", amount)
+                        .append("items", List.of(ITEMS[random.nextInt(ITEMS.length)],
+                                ITEMS[random.nextInt(ITEMS.length)]))
+                        .append("orderDate", Date.from(orderDate)));
+                if (orderBatch.size() == BATCH) {
+                    orderCollection.insertMany(orderBatch, unordered);
+                    orders += orderBatch.size();
+                    orderBatch.clear();
+                }
+            }
+
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            customerBatch.add(new Document("_id", id)
+                    .append("name", first + " " + last)
+                    .append("email", first.toLowerCase() + "." + last.toLowerCase() + i + "@example.com")
+                    .append("phone", String.format("+91%010d", random.nextLong(10_000_000_000L)))
+                    .append("totalSpend", Math.round(totalSpend * 100) / 100.0)
+                    .append("visits", visits)
+                    .append("lastSeen", Date.from(lastSeen)));
+            if (customerBatch.size() == BATCH) {
+                customerCollection.insertMany(customerBatch, unordered);
+                customerBatch.clear();
+            }
+            if ((i + 1) % 250_000 == 0) {
+                System.out.printf("  generated %,d customers%n", i + 1);
+            }
+        }
+        if (!customerBatch.isEmpty()) {
+            customerCollection.insertMany(customerBatch, unordered);
+        }
+        if (!orderBatch.isEmpty()) {
+            orderCollection.insertMany(orderBatch, unordered);
+            orders += orderBatch.size();
+        }
+        System.out.printf("Generated %,d customers and %,d orders in %d s%n", customers, orders,
+                Duration.ofNanos(System.nanoTime() - started).toSeconds());
+        return sample;
+    }
+
+    private double gaussian() {
+        // Box-Muller; SplittableRandom has no nextGaussian on every JDK we build with.
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
@@ -0,0 +1,28 @@
+package com.xeno.crm_backend.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared outbound HTTP client for vendor calls. The JDK client keeps idle
+ * connections alive and reuses them per host (see the jdk.httpclient.* system
+ * properties for pool size and keep-alive), negotiates HTTP/2 where the vendor
+ * supports it and multiplexes concurrent requests over one connection.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public HttpClient vendorHttpClient(@Value("${http-client.version:HTTP_2}") HttpClient.Version version,
+                                       @Value("${http-client.connect-timeout-ms:2000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+}
@@ -2,6 +2,8 @@ package com.xeno.crm_backend.config;
 
 import java.io.IOException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +24,8 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -29,57 +33,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        System.out.println("JWT Filter - Request: " + request.getMethod() + " " + request.getRequestURI());
-        
         String authHeader = request.getHeader("Authorization");
-        System.out.println("JWT Filter - Authorization header: " + (authHeader != null ? "Present" : "Not present"));
-        
-        String token = null;
+        Claims claims = null;
         String email = null;
         
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            System.out.println("JWT Filter - Token extracted, length: " + token.length());
-            try {
-                email = jwtUtil.extractEmail(token);
-                System.out.println("JWT Filter - Email extracted: " + email);
-            } catch (Exception e) {
-                System.err.println("JWT Filter - Error extracting email from token: " + e.getMessage());
-                e.printStackTrace();
+            // One signature check per distinct token; repeat requests hit JwtUtil's verified-token cache.
+            claims = jwtUtil.verify(authHeader.substring(7));
+            if (claims != null) {
+                email = claims.getSubject();
+            } else {
+                // Sampled in logback-spring.xml: a client retrying a stale token would otherwise flood the log.
+                log.info("Rejected invalid or expired token on {} {}", request.getMethod(), request.getRequestURI());
             }
         }
         
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                if (jwtUtil.validateToken(token) && !jwtUtil.isTokenExpired(token)) {
-                    Claims claims = jwtUtil.extractClaims(token);
-                    
-                    UserDetails userDetails = User.builder()
-                            .username(email)
-                            .password("")
-                            .authorities("USER")
-                            .build();
+            UserDetails userDetails = User.builder()
+                    .username(email)
+                    .password("")
+                    .authorities("USER")
+                    .build();
 
-                    UsernamePasswordAuthenticationToken authToken = 
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // Store claims in request attribute for controllers to access
-                    request.setAttribute("userClaims", claims);
-                    
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    System.out.println("JWT Filter - Authentication successful for: " + email);
-                } else {
-                    System.out.println("JWT Filter - Token validation failed or expired");
-                }
-            } catch (Exception e) {
-                System.err.println("JWT Filter - Error during token validation: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else if (email == null) {
-            System.out.println("JWT Filter - No email extracted from token");
-        } else {
-            System.out.println("JWT Filter - Authentication already exists");
+            UsernamePasswordAuthenticationToken authToken = 
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            
+            // Store claims in request attribute for controllers to access
+            request.setAttribute("userClaims", claims);
+            
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            log.debug("Authenticated {} for {}", email, request.getRequestURI());
         }
 
         filterChain.doFilter(request, response);
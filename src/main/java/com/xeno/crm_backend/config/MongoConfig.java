@@ -0,0 +1,30 @@
+package com.xeno.crm_backend.config;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import com.xeno.crm_backend.util.DateValues;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new LegacyDateReadingConverter()));
+    }
+
+    /** Reads dates still stored as strings until the typed-date migration has rewritten them. */
+    @ReadingConverter
+    static class LegacyDateReadingConverter implements Converter<String, Instant> {
+        @Override
+        public Instant convert(String source) {
+            return DateValues.toInstantOrNull(source);
+        }
+    }
+}
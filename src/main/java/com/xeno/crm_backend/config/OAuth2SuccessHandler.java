@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -20,6 +22,8 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(OAuth2SuccessHandler.class);
+
     @Value("${frontend.url:http://localhost:3000}")
     private String frontendUrl;
 
@@ -38,13 +42,11 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
         // Generate JWT token
         String token = jwtUtil.generateToken(email, name, picture);
         
-        // Log for debugging
-        System.out.println("OAuth2 Success - User: " + email);
-        System.out.println("Generated JWT token");
+        log.info("OAuth2 login succeeded for {}", email);
         
         // Redirect to frontend with token as query parameter
         String redirectUrl = frontendUrl + "/home?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
-        System.out.println("Redirecting to: " + redirectUrl);
+        log.debug("Redirecting {} to {}/home", email, frontendUrl);
         
         response.sendRedirect(redirectUrl);
     }
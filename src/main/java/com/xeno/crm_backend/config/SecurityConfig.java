@@ -36,20 +36,21 @@ public class SecurityConfig {
             .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.deny()))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                .requestMatchers("/vendor/send").permitAll()
+                .requestMatchers("/vendor/send", "/vendor/send/batch").permitAll()
                 .requestMatchers("/api/delivery-receipt").permitAll()
-                .requestMatchers("/", "/login**", "/error", "/actuator/**").permitAll()
+                .requestMatchers("/", "/login**", "/error").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
                 .requestMatchers("/oauth2/**", "/login/oauth2/**").permitAll()
                 .requestMatchers("/api/ai/**").permitAll()
                 .requestMatchers("/api/logout").permitAll()
                 .requestMatchers("/api/user").authenticated() 
-                .requestMatchers("/api/**", "/vendor/**").authenticated()
+                .requestMatchers("/api/**", "/vendor/**", "/actuator/**").authenticated()
                 .anyRequest().permitAll()
             )
             .exceptionHandling(exceptions -> exceptions
                 .authenticationEntryPoint((request, response, authException) -> {
-                    // Return 401 for API requests instead of redirecting to login
-                    if (request.getRequestURI().startsWith("/api/")) {
+                    // Return 401 for API and actuator requests instead of redirecting to login
+                    if (request.getRequestURI().startsWith("/api/") || request.getRequestURI().startsWith("/actuator/")) {
                         response.setStatus(401);
                         response.setContentType("application/json");
                         response.getWriter().write("{\"error\":\"Unauthorized\",\"message\":\"Authentication required\"}");
@@ -4,125 +4,200 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 
+import com.xeno.crm_backend.delivery.DeliveryEngine;
+import com.xeno.crm_backend.delivery.DeliveryJob;
+import com.xeno.crm_backend.delivery.VendorThrottle;
+import com.xeno.crm_backend.index.IndexAdvisor;
 import com.xeno.crm_backend.model.Campaign;
-import com.xeno.crm_backend.model.CommunicationLog;
-import com.xeno.crm_backend.model.Customer;
 import com.xeno.crm_backend.repository.CampaignRepository;
-import com.xeno.crm_backend.repository.CommunicationLogRepository;
+import com.xeno.crm_backend.segment.CompiledSegment;
+import com.xeno.crm_backend.segment.RuleCompiler;
+import com.xeno.crm_backend.segment.SegmentStore;
+import com.xeno.crm_backend.stats.CampaignStatsAggregator;
+import com.xeno.crm_backend.stats.CampaignStatsCounter;
 
 @RestController
 @RequestMapping("/api/campaigns")
 public class CampaignController {
 
     @Autowired
-private CommunicationLogRepository logRepository;
+    private CampaignRepository campaignRepository;
 
     @Autowired
-    private CampaignRepository campaignRepository;
+    private DeliveryEngine deliveryEngine;
+
+    @Autowired
+    private VendorThrottle vendorThrottle;
+
+    @Autowired
+    private RuleCompiler ruleCompiler;
+
+    @Autowired
+    private SegmentStore segmentStore;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
 
     @Autowired
-    private org.springframework.data.mongodb.core.MongoTemplate mongoTemplate;
+    private CampaignStatsCounter statsCounter;
+
+    @Autowired
+    private CampaignStatsAggregator statsAggregator;
 
     @PostMapping
-    public Campaign saveCampaign(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> saveCampaign(@RequestBody Map<String, Object> request) {
         String name = (String) request.get("name");
         List<Map<String, Object>> rules = new com.fasterxml.jackson.databind.ObjectMapper()
                 .convertValue(request.get("rules"), new com.fasterxml.jackson.core.type.TypeReference<List<Map<String, Object>>>() {});
-        long audienceSize = ((Number) request.get("audienceSize")).longValue();
+        long audienceSize = request.get("audienceSize") instanceof Number n ? n.longValue() : 0;
 
-        Campaign campaign = new Campaign(name, rules, audienceSize, LocalDateTime.now());
-        return campaignRepository.save(campaign);
+        CompiledSegment segment;
+        try {
+            segment = ruleCompiler.compile(rules);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid rules", "message", e.getMessage()));
+        }
+
+        // Materializing runs in the background and then replaces the client-supplied audience size
+        // with the exact segment cardinality.
+        Campaign campaign = campaignRepository.save(new Campaign(name, rules, audienceSize, LocalDateTime.now()));
+        segmentStore.materializeInBackground(campaign, segment);
+        return ResponseEntity.ok(campaign);
     }
 
     @GetMapping
     public List<Campaign> getAllCampaigns() {
         return campaignRepository.findAll();
     }
-    private final RestTemplate restTemplate = new RestTemplate();
 
 @GetMapping("/stats/{campaignId}")
-public Map<String, Long> getStats(@PathVariable String campaignId) {
-    List<CommunicationLog> logs = logRepository.findByCampaignId(campaignId);
+public ResponseEntity<?> getStats(@PathVariable String campaignId,
+                                  @RequestParam(defaultValue = "counters") String mode,
+                                  @RequestParam(required = false) String bucket) {
+    if ("counters".equalsIgnoreCase(mode)) {
+        Map<String, Long> stats = statsCounter.getStats(campaignId);
+        return stats != null ? ResponseEntity.ok(stats) : ResponseEntity.notFound().build();
+    }
+    if (!"aggregate".equalsIgnoreCase(mode)) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Unknown stats mode: " + mode));
+    }
 
-    long sent = logs.stream().filter(log -> "SENT".equalsIgnoreCase(log.getStatus())).count();
-    long failed = logs.stream().filter(log -> "FAILED".equalsIgnoreCase(log.getStatus())).count();
+    CampaignStatsAggregator.Bucket timeBucket = null;
+    if (bucket != null) {
+        try {
+            timeBucket = CampaignStatsAggregator.Bucket.valueOf(bucket.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bucket must be minute or hour"));
+        }
+    }
+    return ResponseEntity.ok(statsAggregator.aggregate(campaignId, timeBucket));
+}
 
-    Map<String, Long> stats = new HashMap<>();
-    stats.put("sent", sent);
-    stats.put("failed", failed);
-    return stats;
+@PostMapping("/stats/rebuild")
+public Map<String, Object> rebuildStats(@RequestParam(required = false) String campaignId) {
+    int campaigns = statsCounter.rebuild(campaignId);
+    return Map.of("rebuiltCampaigns", campaigns);
 }
 
 @PostMapping("/deliver")
-public void deliverCampaign(@RequestBody Map<String, Object> payload) {
+public ResponseEntity<Map<String, Object>> deliverCampaign(@RequestBody Map<String, Object> payload) {
     String campaignId = (String) payload.get("campaignId");
+    if (Boolean.TRUE.equals(payload.get("useSegment"))) {
+        List<String> exclude = new com.fasterxml.jackson.databind.ObjectMapper()
+                .convertValue(payload.get("excludeCampaignIds"), new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {});
+        try {
+            segmentStore.load(campaignId);
+            if (exclude != null) {
+                exclude.forEach(segmentStore::load);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid segment", "message", e.getMessage()));
+        }
+        return accepted(deliveryEngine.submitSegment(campaignId, exclude));
+    }
+
     List<Map<String, Object>> rules = new com.fasterxml.jackson.databind.ObjectMapper()
             .convertValue(payload.get("rules"), new com.fasterxml.jackson.core.type.TypeReference<List<Map<String, Object>>>() {});
-    Query query = new Query();
-    Criteria combined = null;
-
-    for (int i = 0; i < rules.size(); i++) {
-        Map<String, Object> rule = rules.get(i);
-        String field = (String) rule.get("field");
-        String op = (String) rule.get("operator");
-        Object rawValue = rule.get("value");
-
-        Number value;
-        if (rawValue instanceof Number n) {
-            value = n;
-        } else if (rawValue != null) {
-            value = Double.valueOf(rawValue.toString());
-        } else {
-            throw new IllegalArgumentException("Rule value cannot be null");
-        }
+    Query query;
+    try {
+        CompiledSegment segment = ruleCompiler.compile(rules);
+        indexAdvisor.record(segment);
+        query = segment.toQuery();
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Invalid rules", "message", e.getMessage()));
+    }
 
-        Criteria criteria = switch (op) {
-            case ">" -> Criteria.where(field).gt(value);
-            case "<" -> Criteria.where(field).lt(value);
-            case "=" -> Criteria.where(field).is(value);
-            default -> null;
-        };
-        if (criteria == null) {
-            continue;
-        }
+    return accepted(deliveryEngine.submit(campaignId, query));
+}
 
-        if (i == 0) {
-            combined = criteria;
-        } else {
-            String condition = (String) rule.get("condition");
-            combined = "AND".equalsIgnoreCase(condition)
-                    ? new Criteria().andOperator(combined, criteria)
-                    : new Criteria().orOperator(combined, criteria);
-        }
-    }
+private ResponseEntity<Map<String, Object>> accepted(DeliveryJob job) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("jobId", job.getId());
+    response.put("state", job.getState());
+    return ResponseEntity.accepted().body(response);
+}
 
-    if (combined != null) {
-        query.addCriteria(combined);
+@GetMapping("/deliver/{jobId}")
+public ResponseEntity<DeliveryJob> getDelivery(@PathVariable String jobId) {
+    DeliveryJob job = deliveryEngine.getJob(jobId);
+    return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+}
+
+@GetMapping("/deliver/limits")
+public Map<String, Object> getDeliveryLimits() {
+    return vendorThrottle.getLimits();
+}
+
+@PutMapping("/deliver/limits")
+public ResponseEntity<Map<String, Object>> updateDeliveryLimits(@RequestParam(required = false) String vendor,
+                                                                @RequestParam(required = false) Double ratePerSecond,
+                                                                @RequestParam(required = false) Double burst,
+                                                                @RequestParam(required = false) Integer minConcurrency,
+                                                                @RequestParam(required = false) Integer maxConcurrency) {
+    try {
+        vendorThrottle.update(vendor, ratePerSecond, burst, minConcurrency, maxConcurrency);
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
     }
+    return ResponseEntity.ok(vendorThrottle.getLimits());
+}
 
-    List<Customer> recipients = mongoTemplate.find(query, Customer.class);
+@PostMapping("/deliver/{jobId}/pause")
+public ResponseEntity<?> pauseDelivery(@PathVariable String jobId) {
+    return control(() -> deliveryEngine.pause(jobId));
+}
 
-    for (Customer customer : recipients) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("campaignId", campaignId);
-        body.put("customerId", customer.getId());
+@PostMapping("/deliver/{jobId}/resume")
+public ResponseEntity<?> resumeDelivery(@PathVariable String jobId) {
+    return control(() -> deliveryEngine.resume(jobId));
+}
 
-        restTemplate.postForObject("http://localhost:8080/vendor/send", body, Void.class);
-    }
-    System.out.println("🚀 Delivering campaign: " + campaignId);
-    System.out.println("📬 Matching customers: " + recipients.size());
+@PostMapping("/deliver/{jobId}/cancel")
+public ResponseEntity<?> cancelDelivery(@PathVariable String jobId) {
+    return control(() -> deliveryEngine.cancel(jobId));
+}
 
+private ResponseEntity<?> control(Supplier<DeliveryJob> action) {
+    try {
+        DeliveryJob job = action.get();
+        return job != null ? ResponseEntity.accepted().body(job) : ResponseEntity.notFound().build();
+    } catch (IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
 }
 }
@@ -1,14 +1,31 @@
 package com.xeno.crm_backend.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import com.xeno.crm_backend.customer.CustomerMetricsRecompute;
+import com.xeno.crm_backend.ingest.BulkImporter;
+import com.xeno.crm_backend.ingest.ImportJob;
 import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.model.RecomputeJob;
 import com.xeno.crm_backend.repository.CustomerRepository;
+import com.xeno.crm_backend.segment.CustomerChangedEvent;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -18,9 +35,79 @@ public class CustomerController {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BulkImporter bulkImporter;
+
+    @Autowired
+    private CustomerMetricsRecompute metricsRecompute;
+
     @PostMapping
     public ResponseEntity<Customer> createCustomer(@RequestBody Customer customer) {
         Customer savedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(List.of(savedCustomer.getId())));
         return ResponseEntity.ok(savedCustomer);
-    }    
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> importCustomers(@RequestHeader(value = "Content-Type", required = false) String contentType,
+                                             InputStream body) throws IOException {
+        BulkImporter.Format format;
+        try {
+            format = BulkImporter.Format.fromContentType(contentType);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        ImportJob job;
+        try {
+            job = bulkImporter.submit(BulkImporter.Kind.CUSTOMERS, format, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(Map.of("jobId", job.getId(), "state", job.getState()));
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String jobId) {
+        ImportJob job = bulkImporter.getJob(jobId);
+        return job != null && job.getKind() == BulkImporter.Kind.CUSTOMERS
+                ? ResponseEntity.ok(job)
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/aggregates/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeAggregates() {
+        try {
+            RecomputeJob job = metricsRecompute.start();
+            return ResponseEntity.accepted().body(Map.of("jobId", job.getId(), "state", job.getState()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/aggregates/recompute/{jobId}")
+    public ResponseEntity<Map<String, Object>> getRecompute(@PathVariable String jobId) {
+        Map<String, Object> progress = metricsRecompute.progress(jobId);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/aggregates/recompute/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeRecompute(@PathVariable String jobId) {
+        try {
+            RecomputeJob job = metricsRecompute.resume(jobId);
+            return ResponseEntity.accepted().body(Map.of("jobId", job.getId(), "state", job.getState()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/aggregates/recompute/throttle")
+    public Map<String, Object> throttleRecompute(@RequestParam double rowsPerSecond) {
+        metricsRecompute.setRowsPerSecond(rowsPerSecond);
+        return Map.of("rowsPerSecond", rowsPerSecond);
+    }
 }
@@ -3,6 +3,8 @@ package com.xeno.crm_backend.controller;
 import java.time.LocalDateTime;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -10,14 +12,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.xeno.crm_backend.model.CommunicationLog;
-import com.xeno.crm_backend.repository.CommunicationLogRepository;
+import com.xeno.crm_backend.pubsub.CommunicationLogWriter;
+import com.xeno.crm_backend.stats.CampaignStatsCounter;
 
 @RestController
 @RequestMapping("/api")
 public class DeliveryReceiptController {
 
+    private static final Logger log = LoggerFactory.getLogger(DeliveryReceiptController.class);
+
+    @Autowired
+    private CommunicationLogWriter logWriter;
+
     @Autowired
-    private CommunicationLogRepository logRepository;
+    private CampaignStatsCounter statsCounter;
 
     @PostMapping("/delivery-receipt")
 public void handleReceipt(@RequestBody Map<String, Object> payload) {
@@ -25,11 +33,14 @@ public void handleReceipt(@RequestBody Map<String, Object> payload) {
     String customerId = (String) payload.get("customerId");
     String status = (String) payload.get("status");
 
-    System.out.println("Received delivery receipt - Campaign: " + campaignId +
-                       ", Customer: " + customerId + ", Status: " + status);
+    // High volume during a send; sampled in logback-spring.xml when DEBUG is on.
+    if (log.isDebugEnabled()) {
+        log.debug("Delivery receipt: campaign={}, customer={}, status={}", campaignId, customerId, status);
+    }
 
-    CommunicationLog log = new CommunicationLog(campaignId, customerId, status, LocalDateTime.now());
-    logRepository.save(log);
+    CommunicationLog receipt = new CommunicationLog(campaignId, customerId, status, LocalDateTime.now());
+    logWriter.enqueue(receipt);
+    statsCounter.record(campaignId, status);
 }
 
 }
@@ -0,0 +1,32 @@
+package com.xeno.crm_backend.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.xeno.crm_backend.index.IndexAdvisor;
+import com.xeno.crm_backend.index.IndexManager;
+
+@RestController
+@RequestMapping("/api/indexes")
+public class IndexController {
+
+    @Autowired
+    private IndexManager indexManager;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @GetMapping
+    public Map<String, Object> getIndexes() {
+        return Map.of("ensured", indexManager.getEnsured());
+    }
+
+    @GetMapping("/advice")
+    public Map<String, Object> getAdvice() {
+        return indexAdvisor.report();
+    }
+}
@@ -1,12 +1,23 @@
 package com.xeno.crm_backend.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import com.xeno.crm_backend.customer.CustomerAggregator;
+import com.xeno.crm_backend.ingest.BulkImporter;
+import com.xeno.crm_backend.ingest.ImportJob;
 import com.xeno.crm_backend.model.Order;
 import com.xeno.crm_backend.repository.OrderRepository;
 
@@ -18,9 +29,42 @@ public class OrderController {
     @Autowired
     private OrderRepository OrderRepository;
 
+    @Autowired
+    private BulkImporter bulkImporter;
+
+    @Autowired
+    private CustomerAggregator customerAggregator;
+
     @PostMapping
     public ResponseEntity<Order> createOrder(@RequestBody Order Order) {
         Order savedOrder = OrderRepository.save(Order);
+        customerAggregator.record(savedOrder);
         return ResponseEntity.ok(savedOrder);
-    }    
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> importOrders(@RequestHeader(value = "Content-Type", required = false) String contentType,
+                                          InputStream body) throws IOException {
+        BulkImporter.Format format;
+        try {
+            format = BulkImporter.Format.fromContentType(contentType);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        ImportJob job;
+        try {
+            job = bulkImporter.submit(BulkImporter.Kind.ORDERS, format, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(Map.of("jobId", job.getId(), "state", job.getState()));
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String jobId) {
+        ImportJob job = bulkImporter.getJob(jobId);
+        return job != null && job.getKind() == BulkImporter.Kind.ORDERS
+                ? ResponseEntity.ok(job)
+                : ResponseEntity.notFound().build();
+    }
 }
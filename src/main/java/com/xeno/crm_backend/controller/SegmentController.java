@@ -0,0 +1,34 @@
+package com.xeno.crm_backend.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.xeno.crm_backend.segment.SegmentStore;
+
+@RestController
+@RequestMapping("/api/segments")
+public class SegmentController {
+
+    @Autowired
+    private SegmentStore segmentStore;
+
+    @PostMapping("/ops")
+    public ResponseEntity<?> combine(@RequestBody Map<String, Object> request) {
+        try {
+            SegmentStore.Operation op = SegmentStore.Operation.valueOf(String.valueOf(request.get("op")).toUpperCase());
+            List<String> campaignIds = new com.fasterxml.jackson.databind.ObjectMapper()
+                    .convertValue(request.get("campaignIds"), new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {});
+            long count = segmentStore.combine(op, campaignIds).getLongCardinality();
+            return ResponseEntity.ok(Map.of("op", op, "count", count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid segment operation", "message", e.getMessage()));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.xeno.crm_backend.controller;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -25,16 +27,16 @@ import jakarta.servlet.http.HttpSession;
 @CrossOrigin(origins = {"https://crm-frontend-three-wheat.vercel.app", "http://localhost:3000", "http://localhost:3001"}, allowCredentials = "true")
 public class UserController {
 
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
+
     @GetMapping("/user")
     public ResponseEntity<?> getUser(HttpServletRequest request) {
         try {
-            System.out.println("UserController - /api/user called");
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            System.out.println("UserController - Authentication: " + (authentication != null ? authentication.getName() : "null"));
             
             if (authentication == null || !authentication.isAuthenticated() || 
                 authentication.getPrincipal().equals("anonymousUser")) {
-                System.out.println("UserController - No authentication found or anonymous user");
+                log.debug("No authentication on /api/user");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Not authenticated"));
             }
@@ -46,7 +48,7 @@ public class UserController {
             
             if (claims != null) {
                 // JWT authentication
-                System.out.println("UserController - Authenticated via JWT: " + claims.get("email"));
+                log.debug("/api/user authenticated via JWT: {}", claims.getSubject());
                 userInfo.put("email", claims.get("email"));
                 userInfo.put("name", claims.get("name"));
                 userInfo.put("picture", claims.get("picture"));
@@ -54,24 +56,22 @@ public class UserController {
                 // Try OAuth2 session authentication (fallback)
                 try {
                     OAuth2User user = (OAuth2User) authentication.getPrincipal();
-                    System.out.println("UserController - Authenticated via OAuth2 session: " + user.getAttribute("email"));
+                    log.debug("/api/user authenticated via OAuth2 session: {}", authentication.getName());
                     userInfo.put("email", user.getAttribute("email"));
                     userInfo.put("name", user.getAttribute("name"));
                     userInfo.put("picture", user.getAttribute("picture"));
                 } catch (ClassCastException e) {
                     // Not OAuth2User, try to get from authentication name
-                    System.out.println("UserController - Using authentication name as fallback");
+                    log.debug("/api/user falling back to authentication name {}", authentication.getName());
                     userInfo.put("email", authentication.getName());
                     userInfo.put("name", authentication.getName());
                     userInfo.put("picture", "");
                 }
             }
             
-            System.out.println("UserController - Returning user info: " + userInfo);
             return ResponseEntity.ok(userInfo);
         } catch (Exception e) {
-            System.err.println("UserController - Error in getUser: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error in getUser", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Internal server error", "message", e.getMessage()));
         }
@@ -80,12 +80,9 @@ public class UserController {
     @PostMapping("/logout")
     public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
         try {
-            System.out.println("UserController - /api/logout called");
-            
             // Invalidate session
             HttpSession session = request.getSession(false);
             if (session != null) {
-                System.out.println("UserController - Invalidating session");
                 session.invalidate();
             }
             
@@ -96,7 +93,6 @@ public class UserController {
             Cookie[] cookies = request.getCookies();
             if (cookies != null) {
                 for (Cookie cookie : cookies) {
-                    System.out.println("UserController - Clearing cookie: " + cookie.getName());
                     cookie.setValue("");
                     cookie.setPath("/");
                     cookie.setMaxAge(0);
@@ -104,11 +100,10 @@ public class UserController {
                 }
             }
             
-            System.out.println("UserController - Logout successful");
+            log.debug("Logged out {}", request.getRemoteAddr());
             return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
         } catch (Exception e) {
-            System.err.println("UserController - Error in logout: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error in logout", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Logout failed", "message", e.getMessage()));
         }
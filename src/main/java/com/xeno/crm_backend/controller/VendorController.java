@@ -1,43 +1,133 @@
 package com.xeno.crm_backend.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xeno.crm_backend.pubsub.DeliveryEvent;
 import com.xeno.crm_backend.pubsub.EventPublisher;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/vendor")
 public class VendorController {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final Random random = new Random();
-
  @Autowired
 private EventPublisher eventPublisher;
 
+@Autowired
+private ObjectMapper objectMapper;
+
+@Autowired
+private MeterRegistry meterRegistry;
+
 @PostMapping("/send")
 public ResponseEntity<Map<String, Object>> simulateDelivery(@RequestBody Map<String, Object> payload) {
     String campaignId = (String) payload.get("campaignId");
     String customerId = (String) payload.get("customerId");
 
-    boolean isSent = random.nextDouble() < 0.9;
+    boolean isSent = ThreadLocalRandom.current().nextDouble() < 0.9;
     String status = isSent ? "SENT" : "FAILED";
 
     eventPublisher.publish(new DeliveryEvent(campaignId, customerId, status)); 
+    recordOutcomes("single", isSent ? 1 : 0, isSent ? 0 : 1);
 
     Map<String, Object> response = new HashMap<>();
     response.put("status", status);
     return ResponseEntity.ok(response);
 }
 
+/**
+ * Accepts {@code {"campaignId": "...", "customerIds": ["...", ...]}} and rolls a
+ * status for every recipient. The body is read token by token so large batches
+ * are never bound into an intermediate Map, and all results are published as a
+ * single batch event.
+ */
+@PostMapping("/send/batch")
+public ResponseEntity<Map<String, Object>> simulateBatchDelivery(HttpServletRequest request) throws IOException {
+    String campaignId = null;
+    List<String> customerIds = new ArrayList<>();
+    List<String> statuses = new ArrayList<>();
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    int sent = 0;
+
+    try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return badBatch("Expected a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("campaignId".equals(field)) {
+                campaignId = parser.getValueAsString();
+            } else if ("customerIds".equals(field) && value == JsonToken.START_ARRAY) {
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    // Only scalar ids are recipients; nested objects/arrays and nulls are skipped whole.
+                    if (element == JsonToken.START_OBJECT || element == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if (element == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    boolean isSent = rnd.nextDouble() < 0.9;
+                    customerIds.add(parser.getValueAsString());
+                    statuses.add(isSent ? "SENT" : "FAILED");
+                    if (isSent) {
+                        sent++;
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    if (campaignId == null) {
+        return badBatch("campaignId is required");
+    }
+
+    List<DeliveryEvent> events = new ArrayList<>(customerIds.size());
+    List<Map<String, String>> results = new ArrayList<>(customerIds.size());
+    for (int i = 0; i < customerIds.size(); i++) {
+        events.add(new DeliveryEvent(campaignId, customerIds.get(i), statuses.get(i)));
+        results.add(Map.of("customerId", customerIds.get(i), "status", statuses.get(i)));
+    }
+    eventPublisher.publishAll(events);
+    recordOutcomes("batch", sent, customerIds.size() - sent);
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("campaignId", campaignId);
+    response.put("sent", sent);
+    response.put("failed", customerIds.size() - sent);
+    response.put("results", results);
+    return ResponseEntity.ok(response);
+}
+
+private void recordOutcomes(String mode, int sent, int failed) {
+    meterRegistry.counter("crm.vendor.deliveries", "mode", mode, "status", "SENT").increment(sent);
+    meterRegistry.counter("crm.vendor.deliveries", "mode", mode, "status", "FAILED").increment(failed);
+}
+
+private ResponseEntity<Map<String, Object>> badBatch(String message) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", message));
+}
+
 }
@@ -0,0 +1,112 @@
+package com.xeno.crm_backend.customer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.model.Order;
+import com.xeno.crm_backend.segment.CustomerChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps {@code totalSpend}, {@code visits} and {@code lastSeen} on customers in
+ * step with their orders. Orders are folded into a per-customer delta in memory
+ * and flushed periodically as one {@code $inc}/{@code $max} update per customer,
+ * so a burst of orders for the same customer costs a single write.
+ */
+@Component
+public class CustomerAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerAggregator.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Delta> pending = new ConcurrentHashMap<>();
+
+    public CustomerAggregator(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void record(Order order) {
+        if (order.getCustomerid() == null) {
+            return;
+        }
+        double amount = order.getAmount() != null ? order.getAmount() : 0;
+        // compute() serializes updates per customer, so a delta removed by flush() is never mutated again.
+        pending.compute(order.getCustomerid(), (id, delta) -> {
+            Delta d = delta != null ? delta : new Delta();
+            d.spend += amount;
+            d.visits++;
+            if (order.getOrderDate() != null && (d.lastSeen == null || order.getOrderDate().compareTo(d.lastSeen) > 0)) {
+                d.lastSeen = order.getOrderDate();
+            }
+            return d;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${customer-aggregates.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Delta> drained = new HashMap<>();
+        for (String customerId : pending.keySet()) {
+            Delta delta = pending.remove(customerId);
+            if (delta != null) {
+                drained.put(customerId, delta);
+            }
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        drained.forEach((customerId, delta) -> {
+            Update update = new Update().inc("totalSpend", delta.spend).inc("visits", delta.visits);
+            if (delta.lastSeen != null) {
+                update.max("lastSeen", delta.lastSeen);
+            }
+            ops.updateOne(Query.query(Criteria.where("id").is(customerId)), update);
+        });
+        try {
+            ops.execute();
+            eventPublisher.publishEvent(new CustomerChangedEvent(new ArrayList<>(drained.keySet())));
+        } catch (RuntimeException e) {
+            log.error("Failed to flush aggregates for {} customers, retrying next cycle", drained.size(), e);
+            drained.forEach((customerId, delta) -> pending.merge(customerId, delta, Delta::plus));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Delta {
+        double spend;
+        int visits;
+        Instant lastSeen;
+
+        Delta plus(Delta other) {
+            spend += other.spend;
+            visits += other.visits;
+            if (other.lastSeen != null && (lastSeen == null || other.lastSeen.compareTo(lastSeen) > 0)) {
+                lastSeen = other.lastSeen;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.xeno.crm_backend.customer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.model.Order;
+import com.xeno.crm_backend.model.RecomputeJob;
+import com.xeno.crm_backend.segment.CustomerChangedEvent;
+import com.xeno.crm_backend.util.TokenBucket;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rebuilds customer aggregates from {@code orders} as a resumable batch job.
+ * The customers' {@code _id} keyspace is cut into ranges at split points taken
+ * from a {@code $sample} (ObjectIds start with a timestamp, so fixed prefixes
+ * would put nearly everyone in one range), and the ranges are processed in
+ * parallel. Each partition walks its customers in id order, aggregates their
+ * orders a chunk at a time and overwrites all three fields, resetting customers
+ * that have no orders. The last id written is checkpointed per partition in
+ * {@code recompute_jobs}, so a failed or interrupted job resumes where every
+ * partition left off. Writes are paced by a {@link TokenBucket} on customers/sec
+ * shared by all partitions, which can be changed while the job runs.
+ */
+@Component
+public class CustomerMetricsRecompute {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerMetricsRecompute.class);
+
+    private static final int SAMPLES_PER_PARTITION = 32;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerAggregator aggregator;
+    private final int parallelism;
+    private final int partitions;
+    private final int chunkSize;
+    private final TokenBucket throttle;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Progress running;
+
+    public CustomerMetricsRecompute(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                                    CustomerAggregator aggregator,
+                                    @Value("${customer-aggregates.recompute.parallelism:4}") int parallelism,
+                                    @Value("${customer-aggregates.recompute.partitions:64}") int partitions,
+                                    @Value("${customer-aggregates.recompute.chunk-size:1000}") int chunkSize,
+                                    @Value("${customer-aggregates.recompute.rows-per-second:0}") double rowsPerSecond) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.aggregator = aggregator;
+        this.parallelism = Math.max(1, parallelism);
+        this.partitions = Math.max(1, partitions);
+        this.chunkSize = Math.max(1, chunkSize);
+        // One chunk of burst, so a paused job does not catch up in a rush afterwards.
+        this.throttle = new TokenBucket(rowsPerSecond, this.chunkSize);
+    }
+
+    public synchronized RecomputeJob start() {
+        if (running != null) {
+            throw new IllegalStateException("Recompute job " + running.jobId + " is already running");
+        }
+        aggregator.flush();
+        RecomputeJob job = mongoTemplate.insert(new RecomputeJob(sampleSplitPoints(),
+                mongoTemplate.estimatedCount(Customer.class), LocalDateTime.now()));
+        launch(job);
+        return job;
+    }
+
+    public synchronized RecomputeJob resume(String jobId) {
+        if (running != null) {
+            throw new IllegalStateException("Recompute job " + running.jobId + " is already running");
+        }
+        RecomputeJob job = mongoTemplate.findById(jobId, RecomputeJob.class);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown recompute job: " + jobId);
+        }
+        if (job.getState() == RecomputeJob.State.COMPLETED) {
+            throw new IllegalStateException("Recompute job " + jobId + " has already completed");
+        }
+        job.setState(RecomputeJob.State.RUNNING);
+        job.setError(null);
+        job.setFinishedAt(null);
+        mongoTemplate.save(job);
+        launch(job);
+        return job;
+    }
+
+    /** Picks up a job that was still running when the process stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        Thread.ofVirtual().name("recompute-resume").start(() -> {
+            try {
+                RecomputeJob job = mongoTemplate.findOne(
+                        Query.query(Criteria.where("state").is(RecomputeJob.State.RUNNING)), RecomputeJob.class);
+                if (job != null) {
+                    log.info("Resuming interrupted recompute job {}", job.getId());
+                    resume(job.getId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not check for interrupted recompute jobs: {}", e.getMessage());
+            }
+        });
+    }
+
+    public Map<String, Object> progress(String jobId) {
+        RecomputeJob job = mongoTemplate.findById(jobId, RecomputeJob.class);
+        if (job == null) {
+            return null;
+        }
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("jobId", job.getId());
+        progress.put("state", job.getState());
+        progress.put("processedRows", job.getProcessedRows());
+        progress.put("totalRows", job.getTotalRows());
+        progress.put("completedPartitions", job.getCompletedPartitions().size());
+        progress.put("partitions", job.getPartitionCount());
+        progress.put("error", job.getError());
+        progress.put("throttleRowsPerSecond", throttle.getRate());
+
+        Progress live = running;
+        if (live != null && live.jobId.equals(jobId)) {
+            double rate = live.rowsPerSecond();
+            long remaining = Math.max(0, job.getTotalRows() - job.getProcessedRows());
+            progress.put("rowsPerSecond", rate);
+            progress.put("etaSeconds", rate > 0 ? (long) (remaining / rate) : null);
+        }
+        return progress;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        throttle.setRate(rowsPerSecond);
+    }
+
+    private void launch(RecomputeJob job) {
+        Progress progress = new Progress(job.getId());
+        running = progress;
+        executor.execute(() -> run(job, progress));
+    }
+
+    private void run(RecomputeJob job, Progress progress) {
+        updateJob(job.getId(), new Update().set("startedAt", LocalDateTime.now()));
+        Semaphore slots = new Semaphore(parallelism);
+        List<Future<?>> partitions = new ArrayList<>();
+        String failure = null;
+        boolean interrupted = false;
+        try {
+            for (int i = 0; i < job.getPartitionCount(); i++) {
+                if (job.getCompletedPartitions().contains(i)) {
+                    continue;
+                }
+                int partition = i;
+                Object checkpoint = job.getCheckpoints().get(String.valueOf(i));
+                slots.acquire();
+                partitions.add(executor.submit(() -> {
+                    try {
+                        runPartition(job, partition, checkpoint, progress);
+                        return null;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Future<?> partition : partitions) {
+                try {
+                    partition.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof InterruptedException) {
+                        interrupted = true;
+                        continue;
+                    }
+                    log.error("Recompute job {} partition failed", job.getId(), e.getCause());
+                    if (failure == null) {
+                        failure = e.getCause().getMessage();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        }
+        if (interrupted) {
+            // Left RUNNING on purpose: the next startup resumes it from its checkpoints.
+            log.info("Recompute job {} interrupted", job.getId());
+            running = null;
+            return;
+        }
+
+        Update finish = new Update().set("finishedAt", LocalDateTime.now());
+        if (failure == null) {
+            finish.set("state", RecomputeJob.State.COMPLETED);
+            log.info("Recompute job {} finished at {} rows/sec", job.getId(), (long) progress.rowsPerSecond());
+        } else {
+            finish.set("state", RecomputeJob.State.FAILED).set("error", failure);
+        }
+        try {
+            updateJob(job.getId(), finish);
+        } finally {
+            running = null;
+        }
+    }
+
+    private void runPartition(RecomputeJob job, int partition, Object checkpoint, Progress progress)
+            throws InterruptedException {
+        List<Object> splits = job.getSplitPoints();
+        Criteria range = Criteria.where("_id");
+        boolean bounded = false;
+        if (checkpoint != null) {
+            range.gt(checkpoint);
+            bounded = true;
+        } else if (partition > 0) {
+            range.gte(splits.get(partition - 1));
+            bounded = true;
+        }
+        if (partition < splits.size()) {
+            range.lt(splits.get(partition));
+            bounded = true;
+        }
+
+        Query query = (bounded ? Query.query(range) : new Query())
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(chunkSize);
+        query.fields().include("_id");
+
+        List<Object> chunk = new ArrayList<>(chunkSize);
+        try (Stream<Document> customers = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(Customer.class))) {
+            for (Document customer : (Iterable<Document>) customers::iterator) {
+                chunk.add(customer.get("_id"));
+                if (chunk.size() == chunkSize) {
+                    writeChunk(job.getId(), partition, chunk, progress);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(job.getId(), partition, chunk, progress);
+        }
+        updateJob(job.getId(), new Update().addToSet("completedPartitions", partition));
+    }
+
+    private void writeChunk(String jobId, int partition, List<Object> customerIds, Progress progress)
+            throws InterruptedException {
+        List<String> ids = new ArrayList<>(customerIds.size());
+        for (Object id : customerIds) {
+            ids.add(id instanceof ObjectId objectId ? objectId.toHexString() : id.toString());
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("customerid").in(ids)),
+                Aggregation.group("customerid")
+                        .sum("amount").as("totalSpend")
+                        .count().as("visits")
+                        .max("orderDate").as("lastSeen"));
+        Map<String, Document> totals = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(Order.class), Document.class)) {
+            totals.put(row.getString("_id"), row);
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        for (int i = 0; i < customerIds.size(); i++) {
+            Document row = totals.get(ids.get(i));
+            Update update = new Update()
+                    .set("totalSpend", row != null ? ((Number) row.get("totalSpend")).doubleValue() : 0.0)
+                    .set("visits", row != null ? ((Number) row.get("visits")).intValue() : 0);
+            if (row != null && row.get("lastSeen") != null) {
+                update.set("lastSeen", row.get("lastSeen"));
+            } else {
+                update.unset("lastSeen");
+            }
+            ops.updateOne(Query.query(Criteria.where("_id").is(customerIds.get(i))), update);
+        }
+        throttle.acquire(customerIds.size());
+        ops.execute();
+        eventPublisher.publishEvent(new CustomerChangedEvent(ids));
+
+        progress.rows.add(customerIds.size());
+        updateJob(jobId, new Update()
+                .set("checkpoints." + partition, customerIds.get(customerIds.size() - 1))
+                .inc("processedRows", customerIds.size()));
+    }
+
+    /**
+     * Range boundaries on customers' {@code _id}: a sorted {@code $sample} of
+     * {@value #SAMPLES_PER_PARTITION} ids per partition, cut at even quantiles.
+     */
+    private List<Object> sampleSplitPoints() {
+        Aggregation sample = Aggregation.newAggregation(
+                Aggregation.sample((long) partitions * SAMPLES_PER_PARTITION),
+                Aggregation.project("_id"),
+                Aggregation.sort(Sort.Direction.ASC, "_id"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<Object> ids = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(sample,
+                mongoTemplate.getCollectionName(Customer.class), Document.class)) {
+            ids.add(row.get("_id"));
+        }
+        List<Object> splits = new ArrayList<>(partitions - 1);
+        for (int i = 1; i < partitions && !ids.isEmpty(); i++) {
+            Object split = ids.get((int) ((long) i * ids.size() / partitions));
+            if (splits.isEmpty() || !splits.get(splits.size() - 1).equals(split)) {
+                splits.add(split);
+            }
+        }
+        return splits;
+    }
+
+    private void updateJob(String jobId, Update update) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(jobId)), update, RecomputeJob.class);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Progress {
+        final String jobId;
+        final Instant startedAt = Instant.now();
+        final LongAdder rows = new LongAdder();
+
+        Progress(String jobId) {
+            this.jobId = jobId;
+        }
+
+        double rowsPerSecond() {
+            long millis = Math.max(1, Duration.between(startedAt, Instant.now()).toMillis());
+            return rows.sum() * 1000.0 / millis;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.xeno.crm_backend.delivery;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD limit on concurrent vendor calls. Each call that succeeds while the limit is
+ * actually being used (at least half of it in flight) raises the limit by
+ * {@code 1/limit}, so a full window of successes adds one per round trip; a
+ * throttled or failed call, or one slower than the latency threshold, cuts it by
+ * {@code backoffRatio}. The limit stays within [min, max], which can be changed at
+ * runtime.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    enum Outcome { SUCCESS, DROPPED }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int minLimit;
+    private int maxLimit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                               long latencyThresholdNanos) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = clamp(initialLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+    }
+
+    void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Outcome outcome, long latencyNanos) {
+        lock.lock();
+        try {
+            int wasInFlight = inFlight--;
+            if (outcome == Outcome.DROPPED || latencyNanos > latencyThresholdNanos) {
+                limit = clamp(limit * backoffRatio);
+            } else if (wasInFlight * 2 >= limit) {
+                limit = clamp(limit + 1 / limit);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setBounds(int minLimit, int maxLimit) {
+        lock.lock();
+        try {
+            this.minLimit = Math.max(1, minLimit);
+            this.maxLimit = Math.max(this.minLimit, maxLimit);
+            limit = clamp(limit);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getMinLimit() {
+        lock.lock();
+        try {
+            return minLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getMaxLimit() {
+        lock.lock();
+        try {
+            return maxLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,14 @@
+package com.xeno.crm_backend.delivery;
+
+import java.util.stream.Stream;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+public interface AudienceSource {
+
+    /**
+     * Opens a lazily evaluated stream of customer ids matching the query.
+     * Callers must close the stream to release the underlying cursor.
+     */
+    Stream<String> open(Query audience);
+}
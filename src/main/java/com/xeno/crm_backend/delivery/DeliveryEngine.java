@@ -0,0 +1,434 @@
+package com.xeno.crm_backend.delivery;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.segment.SegmentStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs campaign deliveries off the request thread. Recipient ids are pulled from
+ * an {@link AudienceSource}, grouped into batches and handed to virtual threads;
+ * a semaphore bounds the number of batches in flight, so the producer stops
+ * pulling from the cursor (and heap stays flat) whenever the vendor falls behind.
+ *
+ * <p>When the {@link DeliveryJournal} is enabled every batch is journaled before
+ * it is sent, and on startup unacknowledged batches are re-sent and unfinished
+ * jobs continue from the last customer id they had journaled.
+ *
+ * <p>A job's audience is either a Mongo filter or a saved segment descriptor
+ * (see {@link SegmentStore#descriptor}); both are journaled the same way.
+ *
+ * <p>Jobs are persisted through {@link DeliveryJobStore} with a checkpoint: the
+ * low-water mark of recipients whose batches have finished, which only moves
+ * forward once every earlier in-flight batch is done. Pausing or cancelling stops
+ * the producer, drains in-flight batches and records that checkpoint; resuming
+ * continues after it, and paused jobs stay paused across restarts.
+ *
+ * <p>Batches go to the vendor through {@link VendorThrottle}, which paces and
+ * bounds them per vendor endpoint. Vendor batch latency, recipient outcomes and job outcomes are exported as
+ * {@code crm.delivery.*} meters; tags never carry campaign or customer ids.
+ */
+@Component
+public class DeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryEngine.class);
+
+    private final AudienceSource audienceSource;
+    private final SegmentStore segmentStore;
+    private final VendorClient vendorClient;
+    private final VendorThrottle vendorThrottle;
+    private final Optional<DeliveryJournal> journal;
+    private final DeliveryJobStore jobStore;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final long checkpointIntervalNanos;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, DeliveryJob> jobs = new ConcurrentHashMap<>();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private final Timer batchSucceeded;
+    private final Timer batchFailed;
+    private final Counter recipientsSent;
+    private final Counter recipientsFailed;
+    private final Counter jobsCompleted;
+    private final Counter jobsFailed;
+    private final Counter jobsCancelled;
+
+    public DeliveryEngine(AudienceSource audienceSource, SegmentStore segmentStore, VendorClient vendorClient,
+                          VendorThrottle vendorThrottle,
+                          Optional<DeliveryJournal> journal, DeliveryJobStore jobStore, MeterRegistry registry,
+                          @Value("${delivery.batch-size:500}") int batchSize,
+                          @Value("${delivery.max-in-flight-batches:0}") int maxInFlightBatches,
+                          @Value("${delivery.checkpoint-interval-ms:1000}") long checkpointIntervalMillis) {
+        this.audienceSource = audienceSource;
+        this.segmentStore = segmentStore;
+        this.vendorClient = vendorClient;
+        this.vendorThrottle = vendorThrottle;
+        this.journal = journal;
+        this.jobStore = jobStore;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlightBatches = maxInFlightBatches > 0
+                ? maxInFlightBatches
+                : Runtime.getRuntime().availableProcessors() * 2;
+        this.checkpointIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMillis);
+
+        this.batchSucceeded = batchTimer(registry, "success");
+        this.batchFailed = batchTimer(registry, "error");
+        this.recipientsSent = recipientCounter(registry, "sent");
+        this.recipientsFailed = recipientCounter(registry, "failed");
+        this.jobsCompleted = Counter.builder("crm.delivery.jobs").tag("state", "completed").register(registry);
+        this.jobsFailed = Counter.builder("crm.delivery.jobs").tag("state", "failed").register(registry);
+        this.jobsCancelled = Counter.builder("crm.delivery.jobs").tag("state", "cancelled").register(registry);
+        Gauge.builder("crm.delivery.jobs.active", jobs,
+                        j -> j.values().stream().filter(job -> job.getState() == DeliveryJob.State.RUNNING).count())
+                .description("Delivery jobs currently pulling recipients or sending batches")
+                .register(registry);
+    }
+
+    private static Timer batchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("crm.delivery.batch")
+                .description("Latency of one vendor batch, including rate/concurrency waits and throttle retries")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter recipientCounter(MeterRegistry registry, String result) {
+        return Counter.builder("crm.delivery.recipients")
+                .description("Recipients handed to the vendor; rate() gives recipients/sec")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public DeliveryJob submit(String campaignId, Query audience) {
+        return start(new DeliveryJob(UUID.randomUUID().toString(), campaignId, audience.getQueryObject(),
+                Instant.now()), null, false);
+    }
+
+    /** Delivers to the campaign's materialized segment minus the segments of {@code excludeCampaignIds}. */
+    public DeliveryJob submitSegment(String campaignId, List<String> excludeCampaignIds) {
+        return start(new DeliveryJob(UUID.randomUUID().toString(), campaignId,
+                SegmentStore.descriptor(campaignId, excludeCampaignIds), Instant.now()), null, false);
+    }
+
+    private DeliveryJob start(DeliveryJob job, String lastCustomerId, boolean journaled) {
+        jobs.put(job.getId(), job);
+        jobStore.save(job);
+        executor.execute(() -> run(job, lastCustomerId, journaled));
+        return job;
+    }
+
+    /** Stops a queued or running job after its in-flight batches finish; it can be resumed later. */
+    public DeliveryJob pause(String jobId) {
+        return requestStop(jobId, DeliveryJob.StopRequest.PAUSE);
+    }
+
+    /** Stops a queued, running or paused job for good. */
+    public DeliveryJob cancel(String jobId) {
+        DeliveryJob job = jobs.get(jobId);
+        if (job != null && job.cancelWhilePaused()) {
+            jobStore.save(job);
+            return job;
+        }
+        return requestStop(jobId, DeliveryJob.StopRequest.CANCEL);
+    }
+
+    /** Continues a paused job after its checkpoint. */
+    public DeliveryJob resume(String jobId) {
+        DeliveryJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (!job.resumeFromPause()) {
+            throw new IllegalStateException("Delivery job " + jobId + " is " + job.getState() + ", not PAUSED");
+        }
+        log.info("Resuming delivery job {} after customer {}", jobId, job.getCheckpoint());
+        return start(job, job.getCheckpoint(), false);
+    }
+
+    private DeliveryJob requestStop(String jobId, DeliveryJob.StopRequest request) {
+        DeliveryJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (!job.requestStop(request)) {
+            throw new IllegalStateException("Delivery job " + jobId + " is " + job.getState());
+        }
+        return job;
+    }
+
+    /**
+     * Restores jobs after a restart. Jobs still in the journal resume after the last
+     * batch they journaled (their unacknowledged batches are re-sent below); other
+     * unfinished jobs in the store resume after their checkpoint, and paused jobs are
+     * registered so they can be resumed or cancelled. Runs off the startup thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        executor.execute(() -> {
+            Map<String, DeliveryJob> persisted = new ConcurrentHashMap<>();
+            try {
+                jobStore.findUnfinished().forEach(job -> persisted.put(job.getId(), job));
+            } catch (RuntimeException e) {
+                log.warn("Could not load persisted delivery jobs: {}", e.getMessage());
+            }
+
+            journal.ifPresent(j -> {
+                for (DeliveryJournal.RecoveredJob recovered : j.recoveredJobs()) {
+                    log.info("Resuming delivery job {} after customer {}", recovered.jobId(), recovered.lastCustomerId());
+                    DeliveryJob job = persisted.remove(recovered.jobId());
+                    if (job == null) {
+                        job = new DeliveryJob(recovered.jobId(), recovered.campaignId(),
+                                Document.parse(recovered.queryJson()), Instant.now());
+                    }
+                    start(job, recovered.lastCustomerId(), true);
+                }
+            });
+            for (DeliveryJob job : persisted.values()) {
+                if (job.getState() == DeliveryJob.State.PAUSED) {
+                    jobs.put(job.getId(), job);
+                } else {
+                    log.info("Resuming delivery job {} from checkpoint {}", job.getId(), job.getCheckpoint());
+                    start(job, job.getCheckpoint(), false);
+                }
+            }
+
+            journal.ifPresent(j -> {
+                for (DeliveryJournal.RecoveredBatch batch : j.recoveredBatches()) {
+                    DeliveryJob job = jobs.get(batch.jobId());
+                    executor.execute(() -> {
+                        try {
+                            VendorClient.BatchResult result = send(batch.campaignId(), batch.customerIds());
+                            if (job != null) {
+                                job.recordBatch(result.sent(), result.failed());
+                            }
+                            j.ack(batch.seq());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+            });
+        });
+    }
+
+    private Stream<String> openAudience(Document audience, String lastCustomerId) {
+        if (audience.containsKey(SegmentStore.SEGMENT_KEY)) {
+            return segmentStore.open(audience, lastCustomerId);
+        }
+        return audienceSource.open(remainingAudience(audience, lastCustomerId));
+    }
+
+    static Query remainingAudience(Document filter, String lastCustomerId) {
+        if (lastCustomerId != null) {
+            Object lastId = ObjectId.isValid(lastCustomerId) ? new ObjectId(lastCustomerId) : lastCustomerId;
+            Document after = new Document("_id", new Document("$gt", lastId));
+            filter = filter.isEmpty() ? after : new Document("$and", List.of(filter, after));
+        }
+        return new BasicQuery(filter);
+    }
+
+    public DeliveryJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(DeliveryJob job, String lastCustomerId, boolean journaled) {
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        Checkpoint checkpoint = new Checkpoint(lastCustomerId);
+        job.markRunning();
+        jobStore.save(job);
+        log.info("Delivering campaign {} as job {}", job.getCampaignId(), job.getId());
+
+        if (!journaled) {
+            journal.ifPresent(j -> j.jobStarted(job.getId(), job.getCampaignId(), job.getAudience().toJson(),
+                    lastCustomerId));
+        }
+        try (Stream<String> recipients = openAudience(job.getAudience(), lastCustomerId)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            Iterator<String> it = recipients.iterator();
+            while (job.getStopRequest() == DeliveryJob.StopRequest.NONE && it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == batchSize) {
+                    dispatch(job, batch, inFlight, checkpoint);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            // A partial batch left behind by a pause is past the checkpoint and is picked up on resume.
+            DeliveryJob.StopRequest stop = job.getStopRequest();
+            if (stop == DeliveryJob.StopRequest.NONE && !batch.isEmpty()) {
+                dispatch(job, batch, inFlight, checkpoint);
+            }
+
+            // Wait for the last batches to drain before reporting completion.
+            inFlight.acquire(maxInFlightBatches);
+            inFlight.release(maxInFlightBatches);
+            job.advanceCheckpoint(checkpoint.get());
+            // Re-read under the job lock: a pause or cancel may have been accepted while draining.
+            switch (job.finishRun()) {
+                case CANCELLED -> jobsCancelled.increment();
+                case COMPLETED -> jobsCompleted.increment();
+                default -> { }
+            }
+            journal.ifPresent(j -> j.jobFinished(job.getId()));
+            log.info("Campaign {} delivery {}: sent={}, failed={}, {} recipients/sec",
+                    job.getCampaignId(), job.getState(), job.getSent(), job.getFailed(),
+                    (long) job.getRecipientsPerSecond());
+        } catch (InterruptedException e) {
+            // Shutdown: the job stays RUNNING in the store and resumes from its checkpoint on restart.
+            Thread.currentThread().interrupt();
+            job.advanceCheckpoint(checkpoint.get());
+            jobStore.save(job);
+            return;
+        } catch (RuntimeException e) {
+            log.error("Delivery job {} failed", job.getId(), e);
+            job.advanceCheckpoint(checkpoint.get());
+            job.markFailed(e.getMessage());
+            jobsFailed.increment();
+            // Otherwise recovery would find the job in the journal and start the failed send again.
+            journal.ifPresent(j -> j.jobFinished(job.getId()));
+        }
+        jobStore.save(job);
+    }
+
+    private void dispatch(DeliveryJob job, List<String> batch, Semaphore inFlight, Checkpoint checkpoint)
+            throws InterruptedException {
+        inFlight.acquire();
+        long seq;
+        try {
+            seq = journal.map(j -> j.appendBatch(job.getId(), job.getCampaignId(), batch)).orElse(0L);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        job.recordQueued(batch.size());
+        job.sampleHeap(memory.getHeapMemoryUsage().getUsed());
+        Checkpoint.Slot slot = checkpoint.dispatched(batch.get(batch.size() - 1));
+        executor.execute(() -> {
+            boolean finished = true;
+            try {
+                VendorClient.BatchResult result = send(job.getCampaignId(), batch);
+                job.recordBatch(result.sent(), result.failed());
+            } catch (InterruptedException e) {
+                // Shutting down while waiting for vendor permits: leave the batch unacknowledged and
+                // behind the checkpoint so it is sent again after a restart.
+                Thread.currentThread().interrupt();
+                finished = false;
+            } catch (RuntimeException e) {
+                log.warn("Batch of {} for job {} failed: {}", batch.size(), job.getId(), e.getMessage());
+                job.recordBatch(0, batch.size());
+            } finally {
+                inFlight.release();
+                if (finished) {
+                    journal.ifPresent(j -> j.ack(seq));
+                    if (checkpoint.completed(slot, checkpointIntervalNanos)) {
+                        job.advanceCheckpoint(checkpoint.get());
+                        jobStore.save(job);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Low-water mark over batches that complete out of order: the checkpoint moves
+     * to a batch's last customer id only once that batch and every batch dispatched
+     * before it are done.
+     */
+    static final class Checkpoint {
+
+        static final class Slot {
+            private final String lastCustomerId;
+            private boolean done;
+
+            Slot(String lastCustomerId) {
+                this.lastCustomerId = lastCustomerId;
+            }
+        }
+
+        private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+        private String value;
+        private long lastSavedNanos = System.nanoTime();
+
+        Checkpoint(String initial) {
+            this.value = initial;
+        }
+
+        synchronized Slot dispatched(String lastCustomerId) {
+            Slot slot = new Slot(lastCustomerId);
+            pending.addLast(slot);
+            return slot;
+        }
+
+        /** Marks a batch done; returns true when the mark moved and it is time to persist it. */
+        synchronized boolean completed(Slot slot, long saveIntervalNanos) {
+            slot.done = true;
+            boolean moved = false;
+            while (!pending.isEmpty() && pending.peekFirst().done) {
+                value = pending.pollFirst().lastCustomerId;
+                moved = true;
+            }
+            long now = System.nanoTime();
+            if (moved && now - lastSavedNanos >= saveIntervalNanos) {
+                lastSavedNanos = now;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized String get() {
+            return value;
+        }
+    }
+
+    private VendorClient.BatchResult send(String campaignId, List<String> batch) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            VendorClient.BatchResult result = vendorThrottle.send(vendorClient, campaignId, batch);
+            (result.outcome() == VendorClient.Outcome.OK ? batchSucceeded : batchFailed)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recipientsSent.increment(result.sent());
+            recipientsFailed.increment(result.failed());
+            return result;
+        } catch (RuntimeException e) {
+            batchFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recipientsFailed.increment(batch.size());
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
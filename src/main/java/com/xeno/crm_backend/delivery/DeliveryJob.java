@@ -0,0 +1,179 @@
+package com.xeno.crm_backend.delivery;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+
+/**
+ * Live state of one campaign send. Transitions:
+ * QUEUED → RUNNING → COMPLETED | FAILED | PAUSED | CANCELLED, PAUSED → RUNNING | CANCELLED.
+ * {@code checkpoint} is the low-water mark of the audience: every recipient up to
+ * and including that customer id has been sent (or has failed), so a resumed job
+ * continues after it.
+ */
+public class DeliveryJob {
+
+    public enum State { QUEUED, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED }
+
+    /** What the producer should do the next time it checks in. */
+    enum StopRequest { NONE, PAUSE, CANCEL }
+
+    private final String id;
+    private final String campaignId;
+    private final Document audience;
+    private final Instant createdAt;
+
+    private volatile State state = State.QUEUED;
+    private volatile StopRequest stopRequest = StopRequest.NONE;
+    private volatile String checkpoint;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+
+    DeliveryJob(String id, String campaignId, Document audience, Instant createdAt) {
+        this.id = id;
+        this.campaignId = campaignId;
+        this.audience = audience;
+        this.createdAt = createdAt;
+    }
+
+    /** Seeds a job loaded from the job store with its persisted progress. */
+    void restore(State state, String checkpoint, long queuedCount, long sentCount, long failedCount,
+                 long batchCount, Instant startedAt) {
+        this.state = state;
+        this.checkpoint = checkpoint;
+        this.startedAt = startedAt;
+        queued.add(queuedCount);
+        sent.add(sentCount);
+        failed.add(failedCount);
+        batches.add(batchCount);
+    }
+
+    synchronized void markRunning() {
+        if (startedAt == null) {
+            startedAt = Instant.now();
+        }
+        state = State.RUNNING;
+    }
+
+    /** PAUSED → RUNNING, clearing the pause request; false if the job is not paused. */
+    synchronized boolean resumeFromPause() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        stopRequest = StopRequest.NONE;
+        state = State.RUNNING;
+        return true;
+    }
+
+    /** PAUSED → CANCELLED without a running producer; false if the job is not paused. */
+    synchronized boolean cancelWhilePaused() {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        markCancelled();
+        return true;
+    }
+
+    /**
+     * Ends the producer's run as the stop request says: PAUSED, CANCELLED or COMPLETED.
+     * The request is read under the job lock, so a pause or cancel accepted up to this
+     * point is honoured and later ones are refused.
+     */
+    synchronized State finishRun() {
+        switch (stopRequest) {
+            case PAUSE -> markPaused();
+            case CANCEL -> markCancelled();
+            case NONE -> markCompleted();
+        }
+        return state;
+    }
+
+    synchronized void markCompleted() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    synchronized void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    synchronized void markPaused() {
+        state = State.PAUSED;
+    }
+
+    synchronized void markCancelled() {
+        finishedAt = Instant.now();
+        state = State.CANCELLED;
+    }
+
+    /** Asks a queued or running job to stop at the next recipient; false if it is not active. */
+    synchronized boolean requestStop(StopRequest request) {
+        if (state != State.QUEUED && state != State.RUNNING) {
+            return false;
+        }
+        stopRequest = request;
+        return true;
+    }
+
+    StopRequest getStopRequest() {
+        return stopRequest;
+    }
+
+    void advanceCheckpoint(String customerId) {
+        checkpoint = customerId;
+    }
+
+    Document getAudience() {
+        return audience;
+    }
+
+    void recordQueued(int recipients) {
+        queued.add(recipients);
+    }
+
+    void recordBatch(int sentCount, int failedCount) {
+        sent.add(sentCount);
+        failed.add(failedCount);
+        batches.increment();
+    }
+
+    void sampleHeap(long usedBytes) {
+        peakHeapBytes.accumulateAndGet(usedBytes, Math::max);
+    }
+
+    public String getId() { return id; }
+    public String getCampaignId() { return campaignId; }
+    public Instant getCreatedAt() { return createdAt; }
+    public State getState() { return state; }
+    public String getCheckpoint() { return checkpoint; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+    public long getQueued() { return queued.sum(); }
+    public long getSent() { return sent.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public long getBatches() { return batches.sum(); }
+    public long getPeakHeapBytes() { return peakHeapBytes.get(); }
+
+    public double getRecipientsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(start, end).toMillis());
+        return (getSent() + getFailed()) * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,87 @@
+package com.xeno.crm_backend.delivery;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persists delivery job state and checkpoints in {@code delivery_jobs} so progress
+ * is queryable after a restart and paused jobs can be resumed. The audience is
+ * stored as JSON because segment descriptors use {@code $}-prefixed keys.
+ * Write failures are logged and never fail the delivery itself.
+ */
+@Component
+public class DeliveryJobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryJobStore.class);
+
+    static final String COLLECTION = "delivery_jobs";
+
+    private final MongoTemplate mongoTemplate;
+
+    public DeliveryJobStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void save(DeliveryJob job) {
+        Update update = new Update()
+                .set("campaignId", job.getCampaignId())
+                .set("audienceJson", job.getAudience().toJson())
+                .set("state", job.getState().name())
+                .set("checkpoint", job.getCheckpoint())
+                .set("queued", job.getQueued())
+                .set("sent", job.getSent())
+                .set("failed", job.getFailed())
+                .set("batches", job.getBatches())
+                .set("createdAt", toDate(job.getCreatedAt()))
+                .set("startedAt", toDate(job.getStartedAt()))
+                .set("finishedAt", toDate(job.getFinishedAt()))
+                .set("error", job.getError());
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(job.getId())), update, COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Could not persist delivery job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /** Jobs that were queued, running or paused when they were last saved. */
+    public List<DeliveryJob> findUnfinished() {
+        Query query = Query.query(Criteria.where("state").in(
+                DeliveryJob.State.QUEUED.name(), DeliveryJob.State.RUNNING.name(), DeliveryJob.State.PAUSED.name()));
+        return mongoTemplate.find(query, Document.class, COLLECTION).stream()
+                .map(DeliveryJobStore::toJob)
+                .toList();
+    }
+
+    private static DeliveryJob toJob(Document doc) {
+        DeliveryJob job = new DeliveryJob(doc.getString("_id"), doc.getString("campaignId"),
+                Document.parse(doc.getString("audienceJson")),
+                doc.getDate("createdAt") != null ? doc.getDate("createdAt").toInstant() : Instant.now());
+        job.restore(DeliveryJob.State.valueOf(doc.getString("state")), doc.getString("checkpoint"),
+                number(doc, "queued"), number(doc, "sent"), number(doc, "failed"), number(doc, "batches"),
+                toInstant(doc.getDate("startedAt")));
+        return job;
+    }
+
+    private static long number(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant != null ? Date.from(instant) : null;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
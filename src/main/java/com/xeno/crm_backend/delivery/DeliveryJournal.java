@@ -0,0 +1,452 @@
+package com.xeno.crm_backend.delivery;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only, on-disk journal of delivery work so a restart does not lose
+ * track of a campaign send. Every batch is journaled (and fsynced) before it is
+ * handed to the vendor and acknowledged once the vendor has answered. Appends
+ * from all delivery threads go through one writer thread that fsyncs once per
+ * drained group, so concurrent batches share the cost of a sync.
+ *
+ * <p>Record layout: {@code int length, int crc32c, byte type, payload}. A torn
+ * or corrupt record ends the scan of its segment. Segments roll over at
+ * {@code segment-bytes}, and each new segment starts by re-recording the jobs
+ * that are still running. Rolled segments are reclaimed from the oldest end
+ * only, once every batch in them is acknowledged: a segment also carries the
+ * ACK and JOB_END records for older segments, so it must outlive them.
+ */
+@Component
+@ConditionalOnProperty(name = "delivery.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class DeliveryJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryJournal.class);
+
+    private static final byte JOB_START = 1;
+    private static final byte TASK = 2;
+    private static final byte ACK = 3;
+    private static final byte JOB_END = 4;
+
+    public record RecoveredJob(String jobId, String campaignId, String queryJson, String lastCustomerId) {}
+
+    public record RecoveredBatch(long seq, String jobId, String campaignId, List<String> customerIds) {}
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    private final BlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private volatile boolean running = true;
+    private Thread writer;
+
+    private final List<RecoveredJob> recoveredJobs = new ArrayList<>();
+    private final List<RecoveredBatch> recoveredBatches = new ArrayList<>();
+
+    // Owned by the writer thread once started.
+    private FileChannel channel;
+    private long currentSegment;
+    private long currentSize;
+    private final Map<Long, Long> taskSegments = new HashMap<>();
+    private final TreeMap<Long, Integer> outstandingPerSegment = new TreeMap<>();
+    private final TreeSet<Long> rolledSegments = new TreeSet<>();
+    private final Map<String, RecoveredJob> activeJobs = new LinkedHashMap<>();
+
+    public DeliveryJournal(@Value("${delivery.journal.dir:data/delivery-journal}") String directory,
+                           @Value("${delivery.journal.segment-bytes:67108864}") long segmentBytes) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+        recover(segments);
+
+        // Compact everything still pending into a fresh segment, then drop the old ones.
+        // Batches go first so they cannot move a job's resume point backwards.
+        currentSegment = segments.isEmpty() ? 1 : segmentId(segments.get(segments.size() - 1)) + 1;
+        openSegment(currentSegment);
+        for (RecoveredBatch batch : recoveredBatches) {
+            writeDirect(new Entry(TASK, batch.seq(), batch.jobId(), batch.campaignId(), null, null, batch.customerIds(), false));
+        }
+        for (RecoveredJob job : recoveredJobs) {
+            writeDirect(new Entry(JOB_START, 0, job.jobId(), job.campaignId(), job.queryJson(), job.lastCustomerId(), null, false));
+        }
+        channel.force(false);
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+
+        if (!recoveredJobs.isEmpty() || !recoveredBatches.isEmpty()) {
+            log.info("Delivery journal recovered {} unfinished jobs and {} unacknowledged batches",
+                    recoveredJobs.size(), recoveredBatches.size());
+        }
+        writer = Thread.ofPlatform().name("delivery-journal-writer").daemon().start(this::runWriter);
+    }
+
+    public List<RecoveredJob> recoveredJobs() {
+        return List.copyOf(recoveredJobs);
+    }
+
+    public List<RecoveredBatch> recoveredBatches() {
+        return List.copyOf(recoveredBatches);
+    }
+
+    public void jobStarted(String jobId, String campaignId, String queryJson) {
+        jobStarted(jobId, campaignId, queryJson, null);
+    }
+
+    /** Records a job (re)starting after {@code lastCustomerId}, e.g. when a paused job is resumed. */
+    public void jobStarted(String jobId, String campaignId, String queryJson, String lastCustomerId) {
+        submit(new Entry(JOB_START, 0, jobId, campaignId, queryJson, lastCustomerId, null, true)).join();
+    }
+
+    /** Durably records a batch about to be sent and returns its sequence number. */
+    public long appendBatch(String jobId, String campaignId, List<String> customerIds) {
+        long seq = nextSeq.getAndIncrement();
+        submit(new Entry(TASK, seq, jobId, campaignId, null, null, customerIds, true)).join();
+        return seq;
+    }
+
+    public void ack(long seq) {
+        submit(new Entry(ACK, seq, null, null, null, null, null, false));
+    }
+
+    public void jobFinished(String jobId) {
+        submit(new Entry(JOB_END, 0, jobId, null, null, null, null, false));
+    }
+
+    private CompletableFuture<Void> submit(Entry entry) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Delivery journal is closed"));
+        }
+        pending.add(entry);
+        return entry.done;
+    }
+
+    private void runWriter() {
+        List<Entry> group = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                pending.drainTo(group);
+                commit(group);
+                group.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void commit(List<Entry> group) {
+        try {
+            boolean sync = false;
+            for (Entry entry : group) {
+                writeDirect(entry);
+                sync |= entry.durable;
+            }
+            if (sync) {
+                channel.force(false);
+            }
+            for (Entry entry : group) {
+                entry.done.complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Delivery journal write failed", e);
+            for (Entry entry : group) {
+                entry.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void writeDirect(Entry entry) throws IOException {
+        byte[] record = entry.encode();
+        if (currentSize > 0 && currentSize + record.length > segmentBytes) {
+            rollOver();
+        }
+        writeFully(record);
+
+        switch (entry.type) {
+            case JOB_START -> activeJobs.put(entry.jobId,
+                    new RecoveredJob(entry.jobId, entry.campaignId, entry.queryJson, entry.lastCustomerId));
+            case TASK -> {
+                taskSegments.put(entry.seq, currentSegment);
+                outstandingPerSegment.merge(currentSegment, 1, Integer::sum);
+                RecoveredJob job = activeJobs.get(entry.jobId);
+                if (job != null && !entry.customerIds.isEmpty()) {
+                    activeJobs.put(entry.jobId, new RecoveredJob(job.jobId(), job.campaignId(), job.queryJson(),
+                            entry.customerIds.get(entry.customerIds.size() - 1)));
+                }
+            }
+            case ACK -> {
+                Long segment = taskSegments.remove(entry.seq);
+                if (segment != null && outstandingPerSegment.merge(segment, -1, Integer::sum) == 0) {
+                    outstandingPerSegment.remove(segment);
+                    reclaimSegments();
+                }
+            }
+            case JOB_END -> activeJobs.remove(entry.jobId);
+            default -> throw new IllegalStateException("Unknown journal record type " + entry.type);
+        }
+    }
+
+    private void rollOver() throws IOException {
+        channel.force(false);
+        channel.close();
+        long previous = currentSegment;
+        openSegment(++currentSegment);
+        for (RecoveredJob job : List.copyOf(activeJobs.values())) {
+            writeFully(new Entry(JOB_START, 0, job.jobId(), job.campaignId(), job.queryJson(),
+                    job.lastCustomerId(), null, false).encode());
+        }
+        channel.force(false);
+        rolledSegments.add(previous);
+        reclaimSegments();
+    }
+
+    /** Deletes rolled segments from the oldest up to the first one that still has unacknowledged batches. */
+    private void reclaimSegments() throws IOException {
+        while (!rolledSegments.isEmpty() && !outstandingPerSegment.containsKey(rolledSegments.first())) {
+            Files.deleteIfExists(segmentPath(rolledSegments.pollFirst()));
+        }
+    }
+
+    private void openSegment(long id) throws IOException {
+        channel = FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentSize = channel.size();
+    }
+
+    private void writeFully(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        currentSize += record.length;
+    }
+
+    private void recover(List<Path> segments) throws IOException {
+        Map<String, RecoveredJob> jobs = new LinkedHashMap<>();
+        Map<Long, RecoveredBatch> batches = new LinkedHashMap<>();
+        long maxSeq = 0;
+
+        for (Path segment : segments) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                while (true) {
+                    byte[] body = readRecord(in);
+                    if (body == null) {
+                        break;
+                    }
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                    byte type = record.readByte();
+                    switch (type) {
+                        case JOB_START -> {
+                            RecoveredJob job = new RecoveredJob(readString(record), readString(record),
+                                    readString(record), readString(record));
+                            RecoveredJob known = jobs.get(job.jobId());
+                            String lastId = job.lastCustomerId() != null || known == null
+                                    ? job.lastCustomerId() : known.lastCustomerId();
+                            jobs.put(job.jobId(), new RecoveredJob(job.jobId(), job.campaignId(), job.queryJson(), lastId));
+                        }
+                        case TASK -> {
+                            long seq = record.readLong();
+                            String jobId = readString(record);
+                            String campaignId = readString(record);
+                            int count = record.readInt();
+                            List<String> ids = new ArrayList<>(count);
+                            for (int i = 0; i < count; i++) {
+                                ids.add(readString(record));
+                            }
+                            batches.put(seq, new RecoveredBatch(seq, jobId, campaignId, ids));
+                            maxSeq = Math.max(maxSeq, seq);
+                            RecoveredJob job = jobs.get(jobId);
+                            if (job != null && !ids.isEmpty()) {
+                                jobs.put(jobId, new RecoveredJob(jobId, job.campaignId(), job.queryJson(), ids.get(count - 1)));
+                            }
+                        }
+                        case ACK -> batches.remove(record.readLong());
+                        case JOB_END -> jobs.remove(readString(record));
+                        default -> log.warn("Skipping unknown journal record type {} in {}", type, segment);
+                    }
+                }
+            }
+        }
+
+        recoveredJobs.addAll(jobs.values());
+        recoveredBatches.addAll(batches.values());
+        nextSeq.set(maxSeq + 1);
+    }
+
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        int crc;
+        try {
+            length = in.readInt();
+            crc = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0) {
+            return null;
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length != length) {
+            return null;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(body);
+        return (int) checksum.getValue() == crc ? body : null;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("segment-\\d+\\.log"))
+                    .sorted((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%016d.log", id));
+    }
+
+    private static long segmentId(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private static final class Entry {
+        final byte type;
+        final long seq;
+        final String jobId;
+        final String campaignId;
+        final String queryJson;
+        final String lastCustomerId;
+        final List<String> customerIds;
+        final boolean durable;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(byte type, long seq, String jobId, String campaignId, String queryJson,
+              String lastCustomerId, List<String> customerIds, boolean durable) {
+            this.type = type;
+            this.seq = seq;
+            this.jobId = jobId;
+            this.campaignId = campaignId;
+            this.queryJson = queryJson;
+            this.lastCustomerId = lastCustomerId;
+            this.customerIds = customerIds;
+            this.durable = durable;
+        }
+
+        byte[] encode() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(type);
+                switch (type) {
+                    case JOB_START -> {
+                        writeString(out, jobId);
+                        writeString(out, campaignId);
+                        writeString(out, queryJson);
+                        writeString(out, lastCustomerId);
+                    }
+                    case TASK -> {
+                        out.writeLong(seq);
+                        writeString(out, jobId);
+                        writeString(out, campaignId);
+                        out.writeInt(customerIds.size());
+                        for (String id : customerIds) {
+                            writeString(out, id);
+                        }
+                    }
+                    case ACK -> out.writeLong(seq);
+                    case JOB_END -> writeString(out, jobId);
+                    default -> throw new IllegalStateException("Unknown journal record type " + type);
+                }
+                byte[] body = bytes.toByteArray();
+                CRC32C checksum = new CRC32C();
+                checksum.update(body);
+                return ByteBuffer.allocate(8 + body.length)
+                        .putInt(body.length)
+                        .putInt((int) checksum.getValue())
+                        .put(body)
+                        .array();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.xeno.crm_backend.delivery;
+
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Customer;
+
+/**
+ * Streams only the {@code _id} of matching customers through a driver cursor,
+ * so the audience is never materialized as mapped {@link Customer} objects.
+ * Ids are returned in ascending {@code _id} order, which is what lets an
+ * interrupted delivery resume after the last id it journaled.
+ */
+@Component
+public class MongoAudienceSource implements AudienceSource {
+
+    private final MongoTemplate mongoTemplate;
+    private final int cursorBatchSize;
+
+    public MongoAudienceSource(MongoTemplate mongoTemplate,
+                               @Value("${delivery.cursor-batch-size:1000}") int cursorBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public Stream<String> open(Query audience) {
+        Query query = Query.of(audience)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(cursorBatchSize);
+        query.fields().include("_id");
+        return mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(Customer.class))
+                .map(doc -> idOf(doc.get("_id")));
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
@@ -0,0 +1,128 @@
+package com.xeno.crm_backend.delivery;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Posts recipient batches to the vendor over the shared {@code vendorHttpClient}.
+ * Requests are sent asynchronously; only the top-level {@code sent} count is read
+ * from the response, so per-recipient results are never bound into objects.
+ */
+@Component
+public class VendorClient {
+
+    private static final Logger log = LoggerFactory.getLogger(VendorClient.class);
+
+    @Autowired
+    private HttpClient vendorHttpClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${delivery.vendor-url:http://localhost:8080/vendor/send/batch}")
+    private String vendorUrl;
+
+    @Value("${http-client.request-timeout-ms:10000}")
+    private long requestTimeoutMillis;
+
+    public BatchResult send(String campaignId, List<String> customerIds) {
+        try {
+            return sendAsync(campaignId, customerIds).join();
+        } catch (CompletionException e) {
+            log.warn("Vendor batch of {} failed for campaign {}: {}", customerIds.size(), campaignId,
+                    e.getCause() != null ? e.getCause().toString() : e.toString());
+            return new BatchResult(0, customerIds.size(), Outcome.ERROR);
+        }
+    }
+
+    public CompletableFuture<BatchResult> sendAsync(String campaignId, List<String> customerIds) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("campaignId", campaignId);
+        body.put("customerIds", customerIds);
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(vendorUrl))
+                    .timeout(Duration.ofMillis(requestTimeoutMillis))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return vendorHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> toResult(response, customerIds.size()));
+    }
+
+    private BatchResult toResult(HttpResponse<byte[]> response, int size) {
+        try {
+            if (response.statusCode() == 429) {
+                return new BatchResult(0, size, Outcome.THROTTLED);
+            }
+            if (response.statusCode() / 100 != 2) {
+                log.warn("Vendor returned HTTP {} for a batch of {}", response.statusCode(), size);
+                return new BatchResult(0, size, Outcome.ERROR);
+            }
+            int sent = readSent(response.body());
+            return sent < 0 ? new BatchResult(0, size, Outcome.ERROR) : new BatchResult(sent, size - sent);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /** Top-level {@code sent} from the vendor response, or -1 when it is missing. */
+    private int readSent(byte[] body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return -1;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("sent".equals(field)) {
+                    return parser.getValueAsInt();
+                }
+                parser.skipChildren();
+            }
+            return -1;
+        }
+    }
+
+    /** Host and port of the vendor endpoint; rate and concurrency limits are kept per vendor. */
+    public String getVendor() {
+        if (vendorUrl == null) {
+            return "default";
+        }
+        String authority = URI.create(vendorUrl).getAuthority();
+        return authority != null ? authority : vendorUrl;
+    }
+
+    /** OK when the vendor answered (individual recipients may still have failed). */
+    public enum Outcome { OK, THROTTLED, ERROR }
+
+    public record BatchResult(int sent, int failed, Outcome outcome) {
+
+        public BatchResult(int sent, int failed) {
+            this(sent, failed, Outcome.OK);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.xeno.crm_backend.delivery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.util.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Outbound flow control per vendor endpoint: a {@link TokenBucket} on recipients/sec
+ * and an {@link AdaptiveConcurrencyLimiter} on concurrent calls. Batches the vendor
+ * throttles (HTTP 429) are retried with exponential backoff instead of being
+ * counted as failed. Limits can be changed at runtime and are exported as
+ * {@code crm.vendor.*} gauges tagged with the vendor host.
+ */
+@Component
+public class VendorThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(VendorThrottle.class);
+
+    private final MeterRegistry registry;
+    private final int initialConcurrency;
+    private final long latencyThresholdNanos;
+    private final int maxThrottleRetries;
+    private final Map<String, Limits> vendors = new ConcurrentHashMap<>();
+
+    private volatile double ratePerSecond;
+    private volatile double burst;
+    private volatile int minConcurrency;
+    private volatile int maxConcurrency;
+
+    public VendorThrottle(MeterRegistry registry,
+                          @Value("${delivery.vendor.rate-per-second:0}") double ratePerSecond,
+                          @Value("${delivery.vendor.burst:1000}") double burst,
+                          @Value("${delivery.vendor.initial-concurrency:4}") int initialConcurrency,
+                          @Value("${delivery.vendor.min-concurrency:1}") int minConcurrency,
+                          @Value("${delivery.vendor.max-concurrency:32}") int maxConcurrency,
+                          @Value("${delivery.vendor.latency-threshold-ms:2000}") long latencyThresholdMillis,
+                          @Value("${delivery.vendor.max-throttle-retries:3}") int maxThrottleRetries) {
+        this.registry = registry;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.initialConcurrency = initialConcurrency;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.maxThrottleRetries = maxThrottleRetries;
+    }
+
+    private final class Limits {
+        final TokenBucket bucket = new TokenBucket(ratePerSecond, burst);
+        final AdaptiveConcurrencyLimiter concurrency = new AdaptiveConcurrencyLimiter(initialConcurrency,
+                minConcurrency, maxConcurrency, 0.9, latencyThresholdNanos);
+        final Timer wait;
+        final Counter throttled;
+
+        Limits(String vendor) {
+            Gauge.builder("crm.vendor.rate_limit", bucket, TokenBucket::getRate)
+                    .description("Recipients/sec allowed to the vendor (0 = unlimited)")
+                    .tag("vendor", vendor).register(registry);
+            Gauge.builder("crm.vendor.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit on concurrent vendor calls")
+                    .tag("vendor", vendor).register(registry);
+            Gauge.builder("crm.vendor.concurrency.in_flight", concurrency, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("vendor", vendor).register(registry);
+            this.wait = Timer.builder("crm.vendor.throttle.wait")
+                    .description("Time a batch waited for rate and concurrency permits")
+                    .tag("vendor", vendor).register(registry);
+            this.throttled = Counter.builder("crm.vendor.throttled")
+                    .description("Batches the vendor rejected with 429")
+                    .tag("vendor", vendor).register(registry);
+        }
+    }
+
+    /** Sends one batch through the vendor's limits, retrying batches the vendor throttles. */
+    public VendorClient.BatchResult send(VendorClient client, String campaignId, List<String> batch)
+            throws InterruptedException {
+        Limits limits = vendors.computeIfAbsent(client.getVendor(), Limits::new);
+        for (int attempt = 0; ; attempt++) {
+            long waitStart = System.nanoTime();
+            limits.bucket.acquire(batch.size());
+            limits.concurrency.acquire();
+            long start = System.nanoTime();
+            limits.wait.record(start - waitStart, TimeUnit.NANOSECONDS);
+
+            VendorClient.BatchResult result;
+            try {
+                result = client.send(campaignId, batch);
+            } catch (RuntimeException e) {
+                limits.concurrency.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED, System.nanoTime() - start);
+                throw e;
+            }
+            limits.concurrency.release(result.outcome() == VendorClient.Outcome.OK
+                    ? AdaptiveConcurrencyLimiter.Outcome.SUCCESS
+                    : AdaptiveConcurrencyLimiter.Outcome.DROPPED, System.nanoTime() - start);
+
+            if (result.outcome() != VendorClient.Outcome.THROTTLED) {
+                return result;
+            }
+            limits.throttled.increment();
+            if (attempt >= maxThrottleRetries) {
+                log.warn("Vendor {} still throttling after {} retries; failing batch of {}",
+                        client.getVendor(), attempt, batch.size());
+                return result;
+            }
+            TimeUnit.MILLISECONDS.sleep(200L << attempt);
+        }
+    }
+
+    /** Current limits per vendor, plus the defaults new vendors start with. */
+    public Map<String, Object> getLimits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("defaults", Map.of("ratePerSecond", ratePerSecond, "burst", burst,
+                "minConcurrency", minConcurrency, "maxConcurrency", maxConcurrency));
+        vendors.forEach((vendor, limits) -> result.put(vendor, Map.of(
+                "ratePerSecond", limits.bucket.getRate(),
+                "burst", limits.bucket.getBurst(),
+                "minConcurrency", limits.concurrency.getMinLimit(),
+                "maxConcurrency", limits.concurrency.getMaxLimit(),
+                "concurrencyLimit", limits.concurrency.getLimit(),
+                "inFlight", limits.concurrency.getInFlight())));
+        return result;
+    }
+
+    /**
+     * Changes the limits of {@code vendor}, or of every vendor and the defaults when
+     * {@code vendor} is null. Null values leave a setting unchanged.
+     */
+    public void update(String vendor, Double ratePerSecond, Double burst, Integer minConcurrency,
+                       Integer maxConcurrency) {
+        if (vendor != null && !vendors.containsKey(vendor)) {
+            throw new IllegalArgumentException("Unknown vendor " + vendor);
+        }
+        if (vendor == null) {
+            if (ratePerSecond != null) {
+                this.ratePerSecond = ratePerSecond;
+            }
+            if (burst != null) {
+                this.burst = burst;
+            }
+            if (minConcurrency != null) {
+                this.minConcurrency = minConcurrency;
+            }
+            if (maxConcurrency != null) {
+                this.maxConcurrency = maxConcurrency;
+            }
+        }
+        vendors.forEach((name, limits) -> {
+            if (vendor != null && !vendor.equals(name)) {
+                return;
+            }
+            if (ratePerSecond != null) {
+                limits.bucket.setRate(ratePerSecond);
+            }
+            if (burst != null) {
+                limits.bucket.setBurst(burst);
+            }
+            if (minConcurrency != null || maxConcurrency != null) {
+                limits.concurrency.setBounds(
+                        minConcurrency != null ? minConcurrency : limits.concurrency.getMinLimit(),
+                        maxConcurrency != null ? maxConcurrency : limits.concurrency.getMaxLimit());
+            }
+        });
+    }
+}
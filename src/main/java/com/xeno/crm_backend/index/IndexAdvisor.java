@@ -0,0 +1,203 @@
+package com.xeno.crm_backend.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.ExplainVerbosity;
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.segment.CompiledSegment;
+import com.xeno.crm_backend.segment.RuleNode;
+
+/**
+ * Records which rule field/operator combinations segment previews and
+ * deliveries actually use, and samples the Mongo plans of the corresponding
+ * queries with {@code explain}. Query shapes whose winning plan is a
+ * {@code COLLSCAN} are reported together with an index suggestion that puts
+ * equality fields before range fields. A shape is the rule tree's fields and
+ * operators without their values, so new thresholds reuse an existing shape;
+ * at most {@code max-shapes} are tracked, least recently used first out.
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int sampleEvery;
+    private final Map<String, LongAdder> usage = new ConcurrentHashMap<>();
+    private final Map<String, Shape> shapes;
+    private final Semaphore explainSlot = new Semaphore(1);
+
+    public IndexAdvisor(MongoTemplate mongoTemplate,
+                        @Value("${index-advisor.sample-every:100}") int sampleEvery,
+                        @Value("${index-advisor.max-shapes:1000}") int maxShapes) {
+        this.mongoTemplate = mongoTemplate;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        int capacity = Math.max(1, maxShapes);
+        this.shapes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Shape> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /** Called for every segment that is about to be queried; cheap unless the query is sampled. */
+    public void record(CompiledSegment segment) {
+        if (segment.getRoot() == null) {
+            return;
+        }
+        List<RuleNode.Predicate> predicates = new ArrayList<>();
+        collect(segment.getRoot(), predicates);
+        for (RuleNode.Predicate p : predicates) {
+            usage.computeIfAbsent(p.field() + " " + p.operator().symbol(), k -> new LongAdder()).increment();
+        }
+
+        Shape shape = shapes.computeIfAbsent(shapeOf(segment.getRoot()),
+                k -> new Shape(k, suggestIndex(segment.getRoot())));
+        long seen = shape.seen.getAndIncrement();
+        // Explain the first query of each shape and every Nth after that, one at a time.
+        if (seen % sampleEvery == 0 && explainSlot.tryAcquire()) {
+            Shape sampled = shape;
+            Document filter = segment.toQuery().getQueryObject();
+            Thread.ofVirtual().name("index-advisor-explain").start(() -> {
+                try {
+                    explain(sampled, filter);
+                } finally {
+                    explainSlot.release();
+                }
+            });
+        }
+    }
+
+    private void explain(Shape shape, Document filter) {
+        try {
+            Document plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class))
+                    .find(filter)
+                    .explain(ExplainVerbosity.QUERY_PLANNER);
+            Document queryPlanner = plan.get("queryPlanner", Document.class);
+            Set<String> stages = new LinkedHashSet<>();
+            collectStages(queryPlanner != null ? queryPlanner.get("winningPlan") : null, stages);
+            shape.sampled.increment();
+            shape.lastStages = List.copyOf(stages);
+            if (stages.contains("COLLSCAN")) {
+                shape.collscans.increment();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Explain failed for {}: {}", shape.canonical, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Long> fieldUsage = new TreeMap<>();
+        usage.forEach((key, count) -> fieldUsage.put(key, count.sum()));
+
+        List<Shape> tracked;
+        synchronized (shapes) {
+            tracked = List.copyOf(shapes.values());
+        }
+        List<Map<String, Object>> collscans = new ArrayList<>();
+        tracked.stream()
+                .filter(shape -> shape.collscans.sum() > 0)
+                .sorted(Comparator.comparingLong((Shape shape) -> shape.seen.get()).reversed())
+                .forEach(shape -> collscans.add(Map.of(
+                        "rules", shape.canonical,
+                        "queries", shape.seen.get(),
+                        "sampled", shape.sampled.sum(),
+                        "collscans", shape.collscans.sum(),
+                        "lastPlan", shape.lastStages,
+                        "suggestedIndex", shape.suggestedIndex)));
+        return Map.of("usage", fieldUsage, "collscans", collscans, "trackedShapes", tracked.size());
+    }
+
+    /** Fields and operators of the rule tree, values left out, e.g. {@code AND(totalSpend>,visits<)}. */
+    static String shapeOf(RuleNode node) {
+        if (node instanceof RuleNode.Predicate p) {
+            return p.field() + p.operator().symbol();
+        }
+        List<RuleNode> children = node instanceof RuleNode.And and ? and.children() : ((RuleNode.Or) node).children();
+        return children.stream().map(IndexAdvisor::shapeOf).sorted().distinct()
+                .collect(Collectors.joining(",", node instanceof RuleNode.And ? "AND(" : "OR(", ")"));
+    }
+
+    /**
+     * Equality fields first, then range fields, per branch of the rule tree. An
+     * OR is only index-assisted when every branch is, so each branch gets its
+     * own suggestion.
+     */
+    static List<Document> suggestIndex(RuleNode root) {
+        List<RuleNode> branches = root instanceof RuleNode.Or or ? or.children() : List.of(root);
+        Set<Document> suggestions = new LinkedHashSet<>();
+        for (RuleNode branch : branches) {
+            List<RuleNode.Predicate> predicates = new ArrayList<>();
+            collect(branch, predicates);
+            Set<String> equality = new LinkedHashSet<>();
+            Set<String> range = new LinkedHashSet<>();
+            for (RuleNode.Predicate p : predicates) {
+                (p.operator() == RuleNode.Operator.EQ ? equality : range).add(p.field());
+            }
+            range.removeAll(equality);
+            Document keys = new Document();
+            equality.forEach(field -> keys.append(field, 1));
+            range.forEach(field -> keys.append(field, 1));
+            if (!keys.isEmpty()) {
+                suggestions.add(keys);
+            }
+        }
+        return List.copyOf(suggestions);
+    }
+
+    private static void collect(RuleNode node, List<RuleNode.Predicate> out) {
+        if (node instanceof RuleNode.Predicate p) {
+            out.add(p);
+        } else if (node instanceof RuleNode.And and) {
+            and.children().forEach(child -> collect(child, out));
+        } else if (node instanceof RuleNode.Or or) {
+            or.children().forEach(child -> collect(child, out));
+        }
+    }
+
+    private static void collectStages(Object node, Set<String> stages) {
+        if (node instanceof Document doc) {
+            if (doc.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            doc.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private static final class Shape {
+        final String canonical;
+        final List<Document> suggestedIndex;
+        final AtomicLong seen = new AtomicLong();
+        final LongAdder sampled = new LongAdder();
+        final LongAdder collscans = new LongAdder();
+        volatile List<String> lastStages = List.of();
+
+        Shape(String canonical, List<Document> suggestedIndex) {
+            this.canonical = canonical;
+            this.suggestedIndex = suggestedIndex;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.xeno.crm_backend.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared with {@code @Indexed}/{@code @CompoundIndex} on
+ * the model classes. This runs in the background once the application is
+ * ready, and a failing index is logged and skipped, so a slow or unreachable
+ * database never blocks startup. Spring's own auto-index-creation stays off.
+ */
+@Component
+public class IndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexManager.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final List<Map<String, Object>> ensured = new ArrayList<>();
+
+    public IndexManager(MongoTemplate mongoTemplate, @Value("${indexes.ensure-on-startup:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("index-manager").start(() -> {
+            MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                    mongoTemplate.getConverter().getMappingContext();
+            MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+            for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+                if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                    continue;
+                }
+                for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                    ensure(entity.getCollection(), index);
+                }
+            }
+        });
+    }
+
+    private void ensure(String collection, IndexDefinition index) {
+        try {
+            String name = mongoTemplate.indexOps(collection).createIndex(index);
+            synchronized (ensured) {
+                ensured.add(Map.of("collection", collection, "name", name, "keys", index.getIndexKeys().toJson()));
+            }
+            log.debug("Ensured index {} on {}", name, collection);
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure index {} on {}: {}", index.getIndexKeys().toJson(), collection, e.getMessage());
+        }
+    }
+
+    /** Indexes successfully ensured since startup. */
+    public List<Map<String, Object>> getEnsured() {
+        synchronized (ensured) {
+            return List.copyOf(ensured);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.xeno.crm_backend.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.xeno.crm_backend.customer.CustomerAggregator;
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.model.Order;
+import com.xeno.crm_backend.segment.CustomerChangedEvent;
+import com.xeno.crm_backend.util.DateValues;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports customers and orders from NDJSON or CSV bodies. The servlet input
+ * stream cannot outlive the request, so the body is first spooled to a temp file
+ * (at most {@code ingest.max-bytes}) and the HTTP call returns once the upload is
+ * on disk rather than after every chunk has been written. A virtual thread then
+ * parses the spool row by row, never holding more than one chunk in memory, and
+ * upserts in chunks through unordered {@link BulkOperations}, writing one chunk
+ * while the next is being parsed.
+ */
+@Component
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+
+    public enum Kind { CUSTOMERS, ORDERS }
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromContentType(String contentType) {
+            String type = contentType == null ? "" : contentType.toLowerCase();
+            if (type.contains("csv")) {
+                return CSV;
+            }
+            if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Content-Type must be application/x-ndjson or text/csv");
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerAggregator customerAggregator;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Path spoolDir;
+    private final long maxBytes;
+    private final Duration jobRetention;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader csvReader = new CsvMapper().readerFor(Map.class)
+            .with(CsvSchema.emptySchema().withHeader());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkImporter(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                        CustomerAggregator customerAggregator,
+                        @Value("${ingest.chunk-size:5000}") int chunkSize,
+                        @Value("${ingest.max-errors:100}") int maxErrors,
+                        @Value("${ingest.spool-dir:${java.io.tmpdir}}") String spoolDir,
+                        @Value("${ingest.max-bytes:1073741824}") long maxBytes,
+                        @Value("${ingest.job-retention-minutes:60}") long jobRetentionMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.customerAggregator = customerAggregator;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = maxErrors;
+        this.spoolDir = Path.of(spoolDir);
+        this.maxBytes = maxBytes;
+        this.jobRetention = Duration.ofMinutes(jobRetentionMinutes);
+    }
+
+    /**
+     * Spools the body and starts the import.
+     *
+     * @throws IllegalArgumentException when the body is larger than {@code ingest.max-bytes}
+     */
+    public ImportJob submit(Kind kind, Format format, InputStream body) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path spool = Files.createTempFile(spoolDir, "import-", ".part");
+        try {
+            spool(body, spool);
+        } catch (IOException | IllegalArgumentException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), kind, format, maxErrors);
+        // Finished jobs stay queryable for the retention period; running ones are never dropped.
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(old -> old.getFinishedAt() != null && old.getFinishedAt().isBefore(cutoff));
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job, spool));
+        return job;
+    }
+
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void spool(InputStream body, Path spool) throws IOException {
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int n;
+            while ((n = body.read(buffer)) != -1) {
+                total += n;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("import body exceeds " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private void run(ImportJob job, Path spool) {
+        job.markRunning();
+        CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            List<Map<String, Object>> chunk = new ArrayList<>(chunkSize);
+            RowSource rows = job.getFormat() == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+            Map<String, Object> row;
+            while ((row = rows.next(job)) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    pending.join();
+                    pending = write(job, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            pending.join();
+            if (!chunk.isEmpty()) {
+                write(job, chunk).join();
+            }
+            job.markCompleted();
+            log.info("Import {} of {} finished: written={}, rejected={}, {} rows/sec", job.getId(), job.getKind(),
+                    job.getRowsWritten(), job.getRowsRejected(), (long) job.getRowsPerSecond());
+        } catch (IOException | RuntimeException e) {
+            log.error("Import {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete spool file {}", spool);
+            }
+        }
+    }
+
+    /** Pulls the next parseable row, recording rejected ones on the job; null at end of input. */
+    private interface RowSource {
+        Map<String, Object> next(ImportJob job) throws IOException;
+    }
+
+    private RowSource ndjsonRows(BufferedReader lines) {
+        long[] lineNo = {0};
+        return job -> {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNo[0]++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.recordRead();
+                try {
+                    return validate(job.getKind(), objectMapper.readValue(line, ROW));
+                } catch (JsonProcessingException e) {
+                    job.recordRejected(lineNo[0], e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    job.recordRejected(lineNo[0], e.getMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+        MappingIterator<Map<String, Object>> it = csvReader.readValues(reader);
+        long[] rowNo = {0};
+        return job -> {
+            // A failure in hasNextValue means the file itself is unreadable and fails the job.
+            while (it.hasNextValue()) {
+                rowNo[0]++;
+                job.recordRead();
+                try {
+                    return validate(job.getKind(), it.nextValue());
+                } catch (JsonProcessingException e) {
+                    job.recordRejected(rowNo[0], e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    job.recordRejected(rowNo[0], e.getMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    private CompletableFuture<Void> write(ImportJob job, List<Map<String, Object>> chunk) {
+        return CompletableFuture.runAsync(() -> {
+            if (job.getKind() == Kind.CUSTOMERS) {
+                writeCustomers(job, chunk);
+            } else {
+                writeOrders(job, chunk);
+            }
+        }, executor);
+    }
+
+    private void writeCustomers(ImportJob job, List<Map<String, Object>> chunk) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        List<String> ids = new ArrayList<>(chunk.size());
+        for (Map<String, Object> row : chunk) {
+            String id = string(row.get("id"));
+            if (id == null) {
+                id = new ObjectId().toHexString();
+            }
+            ids.add(id);
+            Update update = new Update();
+            setIfPresent(update, "name", string(row.get("name")));
+            setIfPresent(update, "email", string(row.get("email")));
+            setIfPresent(update, "phone", string(row.get("phone")));
+            setIfPresent(update, "totalSpend", number(row.get("totalSpend")));
+            Double visits = number(row.get("visits"));
+            setIfPresent(update, "visits", visits != null ? visits.intValue() : null);
+            setIfPresent(update, "lastSeen", DateValues.toInstant(row.get("lastSeen")));
+            ops.upsert(Query.query(Criteria.where("id").is(id)), update);
+        }
+        ops.execute();
+        job.recordWritten(chunk.size());
+        eventPublisher.publishEvent(new CustomerChangedEvent(ids));
+    }
+
+    private void writeOrders(ImportJob job, List<Map<String, Object>> chunk) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        List<Order> orders = new ArrayList<>(chunk.size());
+        for (Map<String, Object> row : chunk) {
+            Order order = new Order(string(row.get("customerid")), number(row.get("amount")),
+                    items(row.get("items")), DateValues.toInstant(row.get("orderDate")));
+            String orderId = string(row.get("orderid"));
+            Update update = new Update()
+                    .set("customerid", order.getCustomerid())
+                    .set("amount", order.getAmount())
+                    .set("items", order.getItems());
+            setIfPresent(update, "orderDate", order.getOrderDate());
+            ops.upsert(Query.query(Criteria.where("orderid").is(orderId != null ? orderId : new ObjectId().toHexString())),
+                    update);
+            orders.add(order);
+        }
+        // Only newly inserted orders feed customer aggregates; re-imported ones were counted the first time.
+        for (BulkWriteUpsert upsert : ops.execute().getUpserts()) {
+            customerAggregator.record(orders.get(upsert.getIndex()));
+        }
+        job.recordWritten(chunk.size());
+    }
+
+    static Map<String, Object> validate(Kind kind, Map<String, Object> values) {
+        if (kind == Kind.CUSTOMERS) {
+            String email = string(values.get("email"));
+            if (string(values.get("id")) == null && string(values.get("name")) == null && email == null) {
+                throw new IllegalArgumentException("customer needs an id, name or email");
+            }
+            if (email != null && !email.contains("@")) {
+                throw new IllegalArgumentException("invalid email '" + email + "'");
+            }
+            nonNegative("totalSpend", values.get("totalSpend"));
+            nonNegative("visits", values.get("visits"));
+            DateValues.toInstant(values.get("lastSeen"));
+        } else {
+            if (string(values.get("customerid")) == null) {
+                throw new IllegalArgumentException("customerid is required");
+            }
+            if (values.get("amount") == null || string(values.get("amount")) == null) {
+                throw new IllegalArgumentException("amount is required");
+            }
+            nonNegative("amount", values.get("amount"));
+            DateValues.toInstant(values.get("orderDate"));
+        }
+        return values;
+    }
+
+    private static void nonNegative(String field, Object value) {
+        Double number;
+        try {
+            number = number(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("" + field + " is not a number");
+        }
+        if (number != null && number < 0) {
+            throw new IllegalArgumentException("" + field + " must not be negative");
+        }
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+
+    private static String string(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String s = value.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static Double number(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        String s = string(value);
+        return s != null ? Double.valueOf(s) : null;
+    }
+
+    /** CSV carries items as a single {@code |}-separated column; NDJSON as an array. */
+    @SuppressWarnings("unchecked")
+    private static List<String> items(Object value) {
+        if (value instanceof List<?> list) {
+            return ((List<Object>) list).stream().map(String::valueOf).toList();
+        }
+        String s = string(value);
+        return s != null ? Arrays.asList(s.split("\\|")) : List.of();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.xeno.crm_backend.ingest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ImportJob {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public record RowError(long row, String message) {}
+
+    private final String id;
+    private final BulkImporter.Kind kind;
+    private final BulkImporter.Format format;
+    private final int maxErrors;
+    private final Instant createdAt = Instant.now();
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+    private final List<RowError> errors = new ArrayList<>();
+
+    public ImportJob(String id, BulkImporter.Kind kind, BulkImporter.Format format, int maxErrors) {
+        this.id = id;
+        this.kind = kind;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void markCompleted() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    void recordRead() {
+        rowsRead.increment();
+    }
+
+    void recordWritten(int rows) {
+        rowsWritten.add(rows);
+    }
+
+    /** Counts every rejected row but only keeps the first {@code maxErrors} messages. */
+    void recordRejected(long row, String message) {
+        rowsRejected.increment();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    public String getId() { return id; }
+    public BulkImporter.Kind getKind() { return kind; }
+    public BulkImporter.Format getFormat() { return format; }
+    public Instant getCreatedAt() { return createdAt; }
+    public State getState() { return state; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+    public long getRowsRead() { return rowsRead.sum(); }
+    public long getRowsWritten() { return rowsWritten.sum(); }
+    public long getRowsRejected() { return rowsRejected.sum(); }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    public double getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(start, end).toMillis());
+        return getRowsWritten() * 1000.0 / millis;
+    }
+}
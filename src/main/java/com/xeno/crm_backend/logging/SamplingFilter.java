@@ -0,0 +1,56 @@
+package com.xeno.crm_backend.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Appender filter that keeps roughly one in {@code keepOneIn} events from loggers
+ * under {@code loggerPrefix} at or below {@code level}; everything else passes
+ * through. Configured per category in logback-spring.xml for per-request events.
+ *
+ * <p>This is an appender filter rather than a TurboFilter on purpose: turbo filters
+ * run (and box their arguments) on every logger call, including calls whose level
+ * is disabled, while appender filters only see events that are actually logged.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private String loggerPrefix = "";
+    private Level level = Level.DEBUG;
+    private int keepOneIn = 1;
+    private final LongAdder dropped = new LongAdder();
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (keepOneIn <= 1
+                || event.getLevel().toInt() > level.toInt()
+                || !event.getLoggerName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (ThreadLocalRandom.current().nextInt(keepOneIn) == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        dropped.increment();
+        return FilterReply.DENY;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.DEBUG);
+    }
+
+    public void setKeepOneIn(int keepOneIn) {
+        this.keepOneIn = keepOneIn;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
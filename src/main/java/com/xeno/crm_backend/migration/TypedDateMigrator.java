@@ -0,0 +1,109 @@
+package com.xeno.crm_backend.migration;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.model.Order;
+import com.xeno.crm_backend.segment.CustomerChangedEvent;
+import com.xeno.crm_backend.util.DateValues;
+
+/**
+ * Rewrites {@code customers.lastSeen} and {@code orders.orderDate} values that
+ * are still stored as strings into BSON dates, in small batches on a background
+ * thread. Values that cannot be parsed are moved to {@code <field>Unparsed} so
+ * they are not retried forever. Until it finishes, legacy strings are still readable through the lenient
+ * converter in {@code MongoConfig}.
+ */
+@Component
+public class TypedDateMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(TypedDateMigrator.class);
+    private static final int BSON_STRING = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public TypedDateMigrator(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                             @Value("${migration.typed-dates.enabled:true}") boolean enabled,
+                             @Value("${migration.typed-dates.batch-size:1000}") int batchSize,
+                             @Value("${migration.typed-dates.pause-ms:50}") long pauseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMs = pauseMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("typed-date-migration").start(() -> {
+            try {
+                if (migrate(mongoTemplate.getCollectionName(Customer.class), "lastSeen") > 0) {
+                    // Date and string comparisons differ, so cached counts and the column index are stale now.
+                    eventPublisher.publishEvent(CustomerChangedEvent.allCustomers());
+                }
+                migrate(mongoTemplate.getCollectionName(Order.class), "orderDate");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Typed date migration did not complete: {}", e.getMessage());
+            }
+        });
+    }
+
+    /** Converts one field batch by batch until no string values are left; returns the number converted. */
+    long migrate(String collection, String field) throws InterruptedException {
+        long converted = 0;
+        long unparsed = 0;
+        while (true) {
+            Query pending = Query.query(Criteria.where(field).type(BSON_STRING)).limit(batchSize);
+            pending.fields().include(field);
+            List<Document> docs = mongoTemplate.find(pending, Document.class, collection);
+            if (docs.isEmpty()) {
+                break;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            for (Document doc : docs) {
+                Query byId = Query.query(Criteria.where("_id").is(doc.get("_id")));
+                Instant instant = DateValues.toInstantOrNull(doc.get(field));
+                if (instant != null) {
+                    ops.updateOne(byId, new Update().set(field, Date.from(instant)));
+                    converted++;
+                } else {
+                    ops.updateOne(byId, new Update().rename(field, field + "Unparsed"));
+                    unparsed++;
+                }
+            }
+            ops.execute();
+            if (pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        }
+        if (converted > 0 || unparsed > 0) {
+            log.info("Migrated {}.{} to dates: converted={}, unparsed={}", collection, field, converted, unparsed);
+        }
+        return converted;
+    }
+}
@@ -7,6 +7,8 @@ import java.util.Map;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 @Document(collection = "campaigns")
 public class Campaign {
 
@@ -17,6 +19,9 @@ public class Campaign {
     private List<Map<String, Object>> rules;
     private long audienceSize;
     private LocalDateTime createdAt;
+    private String segmentKey;
+    private byte[] segmentBitmap;
+    private LocalDateTime segmentMaterializedAt;
 
     public Campaign() {}
 
@@ -65,4 +70,29 @@ public class Campaign {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getSegmentKey() {
+        return segmentKey;
+    }
+
+    public void setSegmentKey(String segmentKey) {
+        this.segmentKey = segmentKey;
+    }
+
+    @JsonIgnore
+    public byte[] getSegmentBitmap() {
+        return segmentBitmap;
+    }
+
+    public void setSegmentBitmap(byte[] segmentBitmap) {
+        this.segmentBitmap = segmentBitmap;
+    }
+
+    public LocalDateTime getSegmentMaterializedAt() {
+        return segmentMaterializedAt;
+    }
+
+    public void setSegmentMaterializedAt(LocalDateTime segmentMaterializedAt) {
+        this.segmentMaterializedAt = segmentMaterializedAt;
+    }
 }
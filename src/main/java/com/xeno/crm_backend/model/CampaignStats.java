@@ -0,0 +1,58 @@
+package com.xeno.crm_backend.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = "campaign_stats")
+public class CampaignStats {
+
+    @Id
+    private String campaignId;
+
+    private long sent;
+    private long failed;
+    private LocalDateTime updatedAt;
+
+    public CampaignStats() {}
+
+    public CampaignStats(String campaignId, long sent, long failed, LocalDateTime updatedAt) {
+        this.campaignId = campaignId;
+        this.sent = sent;
+        this.failed = failed;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getCampaignId() {
+        return campaignId;
+    }
+
+    public void setCampaignId(String campaignId) {
+        this.campaignId = campaignId;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public void setSent(long sent) {
+        this.sent = sent;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
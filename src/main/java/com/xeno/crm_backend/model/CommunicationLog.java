@@ -3,9 +3,11 @@ package com.xeno.crm_backend.model;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "communication_log")
+@CompoundIndex(name = "campaign_status_timestamp", def = "{'campaignId': 1, 'status': 1, 'timestamp': 1}")
 public class CommunicationLog {
 
     @Id
@@ -1,8 +1,14 @@
 package com.xeno.crm_backend.model;
 
+import java.time.Instant;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.xeno.crm_backend.util.LenientInstantDeserializer;
+
 @Document(collection = "customers")
 public class Customer {
     @Id
@@ -11,14 +17,18 @@ public class Customer {
     private String name;
     private String email;
     private String phone;
+    @Indexed
     private Double totalSpend;
+    @Indexed
     private Integer visits;
-    private String lastSeen;
+    @Indexed
+    @JsonDeserialize(using = LenientInstantDeserializer.class)
+    private Instant lastSeen;
 
 
     public Customer() {}
 
-    public Customer(String id, String name, String email, String phone, Double totalSpend, Integer visits, String lastSeen) {
+    public Customer(String id, String name, String email, String phone, Double totalSpend, Integer visits, Instant lastSeen) {
         this.id = id;
         this.name = name;
         this.email = email;
@@ -76,11 +86,11 @@ public class Customer {
         this.visits = visits;
     }
 
-    public String getLastSeen() {
+    public Instant getLastSeen() {
         return lastSeen;
     }
 
-    public void setLastSeen(String lastSeen) {
+    public void setLastSeen(Instant lastSeen) {
         this.lastSeen = lastSeen;
     }
 }
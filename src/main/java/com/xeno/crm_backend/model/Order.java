@@ -1,11 +1,18 @@
 package com.xeno.crm_backend.model;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.xeno.crm_backend.util.LenientInstantDeserializer;
+
 @Document(collection = "orders")
+@CompoundIndex(name = "customer_order_date", def = "{'customerid': 1, 'orderDate': 1}")
 public class Order {
     @Id
     private String orderid;
@@ -13,11 +20,13 @@ public class Order {
     private String customerid;
     private Double amount;
     private List<String> items;
-    private String orderDate;
+    @Indexed
+    @JsonDeserialize(using = LenientInstantDeserializer.class)
+    private Instant orderDate;
 
     public Order() {}
 
-    public Order(String customerId, Double amount, List<String> items, String orderDate) {
+    public Order(String customerId, Double amount, List<String> items, Instant orderDate) {
         this.customerid = customerId;
         this.amount = amount;
         this.items = items;
@@ -57,11 +66,11 @@ public class Order {
         this.items = items;
     }
 
-    public String getOrderDate() {
+    public Instant getOrderDate() {
         return orderDate;
     }
 
-    public void setOrderDate(String orderDate) {
+    public void setOrderDate(Instant orderDate) {
         this.orderDate = orderDate;
     }
 }
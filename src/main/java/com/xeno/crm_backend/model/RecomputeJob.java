@@ -0,0 +1,139 @@
+package com.xeno.crm_backend.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = "recompute_jobs")
+public class RecomputeJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    private String id;
+
+    private State state;
+    private int partitionCount;
+    /** Customer {@code _id} boundaries between partitions; partition i covers [split i-1, split i). */
+    private List<Object> splitPoints;
+    /** Last customer {@code _id} written per partition index, so a resumed job skips finished ranges. */
+    private Map<String, Object> checkpoints = new HashMap<>();
+    private List<Integer> completedPartitions = new ArrayList<>();
+    private long processedRows;
+    private long totalRows;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public RecomputeJob() {}
+
+    public RecomputeJob(List<Object> splitPoints, long totalRows, LocalDateTime createdAt) {
+        this.state = State.RUNNING;
+        this.splitPoints = splitPoints;
+        this.partitionCount = splitPoints.size() + 1;
+        this.totalRows = totalRows;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    public List<Object> getSplitPoints() {
+        return splitPoints;
+    }
+
+    public void setSplitPoints(List<Object> splitPoints) {
+        this.splitPoints = splitPoints;
+    }
+
+    public Map<String, Object> getCheckpoints() {
+        return checkpoints;
+    }
+
+    public void setCheckpoints(Map<String, Object> checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    public List<Integer> getCompletedPartitions() {
+        return completedPartitions;
+    }
+
+    public void setCompletedPartitions(List<Integer> completedPartitions) {
+        this.completedPartitions = completedPartitions;
+    }
+
+    public long getProcessedRows() {
+        return processedRows;
+    }
+
+    public void setProcessedRows(long processedRows) {
+        this.processedRows = processedRows;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
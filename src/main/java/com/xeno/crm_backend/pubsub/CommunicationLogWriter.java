@@ -0,0 +1,245 @@
+package com.xeno.crm_backend.pubsub;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.xeno.crm_backend.model.CommunicationLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind buffer for communication logs. Entries are queued in a bounded
+ * queue and a single flusher thread inserts them with unordered bulk writes
+ * once either {@code batch-size} entries are waiting or {@code flush-interval-ms}
+ * has passed since the first one arrived. When the queue is full, callers wait
+ * up to {@code offer-timeout-ms} and then write inline rather than drop. A
+ * failed insert is retried with exponential backoff, up to {@code max-retries}
+ * times, before the entries still unwritten are dropped; ids are assigned
+ * before the first attempt, so entries that already landed are not duplicated.
+ */
+@Component
+public class CommunicationLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(CommunicationLogWriter.class);
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final BlockingQueue<CommunicationLog> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+    private final Counter written;
+    private final Counter overflow;
+    private final Counter retried;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public CommunicationLogWriter(MongoTemplate mongoTemplate, MeterRegistry registry,
+                                  @Value("${communication-log.writer.queue-capacity:100000}") int capacity,
+                                  @Value("${communication-log.writer.batch-size:1000}") int batchSize,
+                                  @Value("${communication-log.writer.flush-interval-ms:200}") long flushIntervalMillis,
+                                  @Value("${communication-log.writer.offer-timeout-ms:50}") long offerTimeoutMillis,
+                                  @Value("${communication-log.writer.max-retries:5}") int maxRetries,
+                                  @Value("${communication-log.writer.retry-backoff-ms:100}") long retryBackoffMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+
+        Gauge.builder("crm.communication_log.queue.depth", queue, BlockingQueue::size)
+                .description("Communication logs waiting to be flushed")
+                .register(registry);
+        this.flushTimer = Timer.builder("crm.communication_log.flush")
+                .description("Latency of bulk communication log inserts")
+                .register(registry);
+        this.lagTimer = Timer.builder("crm.communication_log.lag")
+                .description("Age of the oldest entry in each batch once it is persisted")
+                .register(registry);
+        this.written = Counter.builder("crm.communication_log.written").register(registry);
+        this.overflow = Counter.builder("crm.communication_log.overflow")
+                .description("Entries written inline because the queue was full")
+                .register(registry);
+        this.retried = Counter.builder("crm.communication_log.retried")
+                .description("Entries whose insert failed and was retried")
+                .register(registry);
+        this.failed = Counter.builder("crm.communication_log.failed")
+                .description("Entries dropped after every insert retry failed")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Thread.ofPlatform().name("communication-log-writer").daemon().start(this::runFlusher);
+    }
+
+    public void enqueue(CommunicationLog entry) {
+        if (queue.offer(entry)) {
+            return;
+        }
+        try {
+            if (queue.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        overflow.increment();
+        flush(List.of(entry));
+    }
+
+    public void enqueueAll(Collection<CommunicationLog> entries) {
+        for (CommunicationLog entry : entries) {
+            enqueue(entry);
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<CommunicationLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                CommunicationLog first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    CommunicationLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Communication log flusher error", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<CommunicationLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (CommunicationLog entry : batch) {
+            if (entry.getId() == null) {
+                entry.setId(new ObjectId().toHexString());
+            }
+        }
+        List<CommunicationLog> pending = batch;
+        for (int attempt = 0; ; attempt++) {
+            int attempted = pending.size();
+            RuntimeException error = null;
+            try {
+                insert(pending);
+                pending = List.of();
+            } catch (BulkOperationException e) {
+                error = e;
+                pending = notWritten(pending, e);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            written.increment(attempted - pending.size());
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (attempt >= maxRetries) {
+                failed.increment(pending.size());
+                log.error("Dropping {} communication logs after {} attempts", pending.size(), attempt + 1, error);
+                return;
+            }
+            retried.increment(pending.size());
+            log.warn("Failed to write {} communication logs, retrying: {}", pending.size(), error.getMessage());
+            try {
+                Thread.sleep(Math.min(MAX_BACKOFF_MILLIS, retryBackoffMillis << Math.min(attempt, 20)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.increment(pending.size());
+                log.error("Interrupted while retrying, dropping {} communication logs", pending.size());
+                return;
+            }
+        }
+        LocalDateTime oldest = batch.get(0).getTimestamp();
+        if (oldest != null) {
+            lagTimer.record(Duration.between(oldest, LocalDateTime.now()));
+        }
+    }
+
+    private void insert(List<CommunicationLog> entries) {
+        flushTimer.record(() -> {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CommunicationLog.class);
+            ops.insert(entries);
+            ops.execute();
+        });
+    }
+
+    /** Entries of an unordered bulk insert that failed for a reason other than already being stored. */
+    private static List<CommunicationLog> notWritten(List<CommunicationLog> entries, BulkOperationException e) {
+        List<CommunicationLog> retry = new ArrayList<>();
+        for (BulkWriteError error : e.getErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                retry.add(entries.get(error.getIndex()));
+            }
+        }
+        return retry;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<CommunicationLog> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining.clear();
+        }
+    }
+}
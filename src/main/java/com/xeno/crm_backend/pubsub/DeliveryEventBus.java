@@ -0,0 +1,174 @@
+package com.xeno.crm_backend.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process event bus for delivery results. Events are partitioned by
+ * campaignId across bounded queues, each drained by a single consumer thread,
+ * so per-campaign ordering is preserved while campaigns are processed in
+ * parallel. When a partition is full the overflow policy decides whether the
+ * publisher blocks or the event is rejected.
+ */
+@Component
+public class DeliveryEventBus {
+
+    public enum OverflowPolicy { BLOCK, DROP }
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryEventBus.class);
+
+    private final List<DeliveryEventSubscriber> subscribers;
+    private final List<BlockingQueue<DeliveryEvent>> partitions;
+    private final List<Thread> consumers = new ArrayList<>();
+    private final OverflowPolicy overflowPolicy;
+    private final int drainBatchSize;
+
+    private final Counter published;
+    private final Counter consumed;
+    private final Counter rejected;
+    private final Counter subscriberErrors;
+
+    private volatile boolean running = true;
+
+    public DeliveryEventBus(List<DeliveryEventSubscriber> subscribers, MeterRegistry registry,
+                            @Value("${event-bus.consumer-threads:0}") int consumerThreads,
+                            @Value("${event-bus.queue-capacity:65536}") int queueCapacity,
+                            @Value("${event-bus.drain-batch-size:512}") int drainBatchSize,
+                            @Value("${event-bus.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy) {
+        this.subscribers = subscribers;
+        this.overflowPolicy = overflowPolicy;
+        this.drainBatchSize = drainBatchSize;
+
+        int partitionCount = consumerThreads > 0 ? consumerThreads : Runtime.getRuntime().availableProcessors();
+        this.partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            BlockingQueue<DeliveryEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+            partitions.add(queue);
+            Gauge.builder("crm.events.partition.lag", queue, BlockingQueue::size)
+                    .tag("partition", String.valueOf(i))
+                    .register(registry);
+        }
+
+        Gauge.builder("crm.events.lag", this, DeliveryEventBus::lag)
+                .description("Events published but not yet consumed")
+                .register(registry);
+        this.published = Counter.builder("crm.events.published").register(registry);
+        this.consumed = Counter.builder("crm.events.consumed").register(registry);
+        this.rejected = Counter.builder("crm.events.rejected").register(registry);
+        this.subscriberErrors = Counter.builder("crm.events.subscriber.errors").register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<DeliveryEvent> queue = partitions.get(i);
+            consumers.add(Thread.ofPlatform().name("delivery-event-bus-" + i).daemon().start(() -> consume(queue)));
+        }
+    }
+
+    public boolean publish(DeliveryEvent event) {
+        BlockingQueue<DeliveryEvent> queue = partitionFor(event.getCampaignId());
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                queue.put(event);
+                accepted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(event);
+        }
+
+        if (accepted) {
+            published.increment();
+        } else {
+            rejected.increment();
+        }
+        return accepted;
+    }
+
+    public int publishAll(List<DeliveryEvent> events) {
+        int accepted = 0;
+        for (DeliveryEvent event : events) {
+            if (publish(event)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public long lag() {
+        long lag = 0;
+        for (BlockingQueue<DeliveryEvent> queue : partitions) {
+            lag += queue.size();
+        }
+        return lag;
+    }
+
+    private BlockingQueue<DeliveryEvent> partitionFor(String campaignId) {
+        int hash = campaignId != null ? campaignId.hashCode() : 0;
+        return partitions.get(Math.floorMod(hash, partitions.size()));
+    }
+
+    private void consume(BlockingQueue<DeliveryEvent> queue) {
+        List<DeliveryEvent> batch = new ArrayList<>(drainBatchSize);
+        while (running) {
+            try {
+                DeliveryEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, drainBatchSize - 1);
+                dispatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(List<DeliveryEvent> batch) {
+        for (DeliveryEventSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                subscriberErrors.increment();
+                log.error("Delivery event subscriber {} failed", subscriber.getClass().getSimpleName(), e);
+            }
+        }
+        consumed.increment(batch.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread consumer : consumers) {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<DeliveryEvent> remaining = new ArrayList<>(drainBatchSize);
+        for (BlockingQueue<DeliveryEvent> queue : partitions) {
+            while (queue.drainTo(remaining, drainBatchSize) > 0) {
+                dispatch(remaining);
+                remaining.clear();
+            }
+        }
+    }
+}
@@ -1,32 +1,45 @@
 package com.xeno.crm_backend.pubsub;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.xeno.crm_backend.model.CommunicationLog;
-import com.xeno.crm_backend.repository.CommunicationLogRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Component
-public class DeliveryEventListener {
+public class DeliveryEventListener implements DeliveryEventSubscriber {
 
-    @Autowired
-    private CommunicationLogRepository logRepository;
+    private static final Logger log = LoggerFactory.getLogger(DeliveryEventListener.class);
 
-    @EventListener
-    public void handleDeliveryEvent(DeliveryEvent event) {
-        System.out.println(" [PubSub] Event received for campaign: " + event.getCampaignId());
+    private final CommunicationLogWriter logWriter;
+    private final Timer handoffTimer;
 
-        CommunicationLog log = new CommunicationLog(
-                event.getCampaignId(),
-                event.getCustomerId(),
-                event.getStatus(),
-                LocalDateTime.now()
-        );
+    public DeliveryEventListener(CommunicationLogWriter logWriter, MeterRegistry registry) {
+        this.logWriter = logWriter;
+        this.handoffTimer = Timer.builder("crm.delivery_events.handoff")
+                .description("Time to hand a batch of delivery events to the communication log writer, including backpressure")
+                .register(registry);
+    }
 
-        logRepository.save(log);
+    @Override
+    public void onEvents(List<DeliveryEvent> events) {
+        if (log.isDebugEnabled()) {
+            log.debug("Delivery events received: {}", events.size());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CommunicationLog> logs = new ArrayList<>(events.size());
+        for (DeliveryEvent event : events) {
+            logs.add(new CommunicationLog(event.getCampaignId(), event.getCustomerId(), event.getStatus(), now));
+        }
+        handoffTimer.record(() -> logWriter.enqueueAll(logs));
     }
 }
 
@@ -0,0 +1,12 @@
+package com.xeno.crm_backend.pubsub;
+
+import java.util.List;
+
+public interface DeliveryEventSubscriber {
+
+    /**
+     * Called from a bus consumer thread with events drained from one partition.
+     * Events for the same campaign always arrive on the same thread, in publish order.
+     */
+    void onEvents(List<DeliveryEvent> events);
+}
@@ -1,18 +1,23 @@
 package com.xeno.crm_backend.pubsub;
 
-import org.springframework.context.ApplicationEventPublisher;
+import java.util.List;
+
 import org.springframework.stereotype.Component;
 
 @Component
 public class EventPublisher {
-    private final ApplicationEventPublisher publisher;
+    private final DeliveryEventBus bus;
 
-    public EventPublisher(ApplicationEventPublisher publisher) {
-        this.publisher = publisher;
+    public EventPublisher(DeliveryEventBus bus) {
+        this.bus = bus;
     }
 
     public void publish(DeliveryEvent event) {
-        publisher.publishEvent(event);
+        bus.publish(event);
+    }
+
+    public void publishAll(List<DeliveryEvent> events) {
+        bus.publishAll(events);
     }
 }
 
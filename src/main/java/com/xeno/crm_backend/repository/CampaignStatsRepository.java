@@ -0,0 +1,10 @@
+package com.xeno.crm_backend.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.xeno.crm_backend.model.CampaignStats;
+
+@Repository
+public interface CampaignStatsRepository extends MongoRepository<CampaignStats, String> {
+}
@@ -0,0 +1,63 @@
+package com.xeno.crm_backend.segment;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xeno.crm_backend.model.Customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches audience sizes by compiled segment key. Entries are bounded by size
+ * and TTL, and the whole cache is dropped whenever customer data changes.
+ * When the {@link CustomerColumnIndex} can answer a segment it is used instead,
+ * since it is always current and needs no Mongo round-trip. Segments with
+ * relative date rules may lag the clock by up to the TTL.
+ */
+@Component
+public class AudienceCountCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final CustomerColumnIndex columnIndex;
+    private final Cache<String, Long> counts;
+    private final Timer loadTimer;
+
+    public AudienceCountCache(MongoTemplate mongoTemplate, CustomerColumnIndex columnIndex, MeterRegistry registry,
+                              @Value("${segment.count-cache.max-size:10000}") long maxSize,
+                              @Value("${segment.count-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.columnIndex = columnIndex;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, counts, "segment.audience_count");
+        this.loadTimer = Timer.builder("crm.segment.audience_count.load")
+                .description("Time to count an audience in Mongo on a cache miss")
+                .register(registry);
+    }
+
+    public long count(CompiledSegment segment) {
+        OptionalLong indexed = columnIndex.count(segment.getRoot());
+        if (indexed.isPresent()) {
+            return indexed.getAsLong();
+        }
+        return counts.get(segment.getKey(),
+                key -> loadTimer.record(() -> mongoTemplate.count(segment.toQuery(), Customer.class)));
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        counts.invalidateAll();
+    }
+}
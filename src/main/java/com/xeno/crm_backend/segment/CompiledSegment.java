@@ -0,0 +1,44 @@
+package com.xeno.crm_backend.segment;
+
+import java.time.Instant;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class CompiledSegment {
+
+    private final String key;
+    private final RuleNode root;
+    private final boolean relative;
+    private final Criteria criteria;
+
+    CompiledSegment(String key, RuleNode root) {
+        this.key = key;
+        this.root = root;
+        this.relative = root != null && RuleCompiler.isRelative(root);
+        this.criteria = root != null && !relative ? RuleCompiler.toCriteria(root, Instant.now()) : null;
+    }
+
+    /** Hash of the canonical rule tree; equal for logically identical rule sets. */
+    public String getKey() {
+        return key;
+    }
+
+    /** Root of the normalized rule tree, or null when the segment matches everyone. */
+    public RuleNode getRoot() {
+        return root;
+    }
+
+    /** True when the audience depends on the current time ("last seen more than 90 days ago"). */
+    public boolean isRelative() {
+        return relative;
+    }
+
+    /** Returns a fresh query so callers may add projections, sorts or cursor options. */
+    public Query toQuery() {
+        if (relative) {
+            return new Query(RuleCompiler.toCriteria(root, Instant.now()));
+        }
+        return criteria != null ? new Query(criteria) : new Query();
+    }
+}
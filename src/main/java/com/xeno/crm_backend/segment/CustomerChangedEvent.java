@@ -0,0 +1,25 @@
+package com.xeno.crm_backend.segment;
+
+import java.util.List;
+
+/**
+ * Published whenever customer documents are written, so anything derived from
+ * customer data (audience counts, in-memory indexes) can refresh itself. An
+ * empty id list means any customer may have changed (e.g. after a bulk
+ * migration), and listeners should reload everything.
+ */
+public class CustomerChangedEvent {
+    private final List<String> customerIds;
+
+    public CustomerChangedEvent(List<String> customerIds) {
+        this.customerIds = customerIds;
+    }
+
+    public static CustomerChangedEvent allCustomers() {
+        return new CustomerChangedEvent(List.of());
+    }
+
+    public List<String> getCustomerIds() { return customerIds; }
+
+    public boolean isAllCustomers() { return customerIds.isEmpty(); }
+}
@@ -0,0 +1,308 @@
+package com.xeno.crm_backend.segment;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Customer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional in-process, column-oriented copy of the customer fields that rules
+ * filter on. Each customer gets a dense ordinal; {@code totalSpend} and
+ * {@code visits} live in primitive arrays (NaN when absent or non-numeric) and
+ * {@code lastSeen} as epoch millis ({@link Long#MIN_VALUE} when absent or not a
+ * BSON date, such as an unmigrated string), so a predicate is a tight scan
+ * producing a {@link RoaringBitmap} and AND/OR become bitmap intersections and
+ * unions. Comparison semantics mirror Mongo's for the coerced rule values:
+ * absent or differently typed fields never match.
+ *
+ * <p>The snapshot is loaded once the application is ready and then kept current
+ * from {@link CustomerChangedEvent}s; an event for all customers reloads the
+ * snapshot. The load and every refresh run in order on the index's own virtual
+ * thread, so publishers never wait on Mongo and a refresh queued during the load
+ * is applied after the older snapshot rows.
+ */
+@Component
+public class CustomerColumnIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerColumnIndex.class);
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Timer evaluationTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("customer-column-index").factory());
+
+    private volatile boolean ready;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private double[] totalSpend = new double[1024];
+    private double[] visits = new double[1024];
+    private long[] lastSeen = new long[1024];
+    private int size;
+
+    public CustomerColumnIndex(MongoTemplate mongoTemplate, MeterRegistry registry,
+                               @Value("${segment.column-index.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.evaluationTimer = Timer.builder("crm.segment.column_index.evaluate")
+                .description("Time to evaluate a rule tree against the in-memory customer index")
+                .register(registry);
+        Gauge.builder("crm.segment.column_index.size", this, CustomerColumnIndex::size).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            refresher.execute(this::loadSnapshot);
+        }
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isAllCustomers()) {
+            // Rows already loaded, e.g. with a lastSeen the date migration has since converted, are re-read.
+            refresher.execute(this::loadSnapshot);
+            return;
+        }
+        List<String> ids = List.copyOf(event.getCustomerIds());
+        refresher.execute(() -> refresh(ids));
+    }
+
+    private void loadSnapshot() {
+        long started = System.nanoTime();
+        try (Stream<Document> customers = mongoTemplate.stream(columnsQuery(new Query()), Document.class,
+                mongoTemplate.getCollectionName(Customer.class))) {
+            customers.forEach(doc -> {
+                lock.writeLock().lock();
+                try {
+                    put(idOf(doc.get("_id")), doc);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            ready = true;
+            log.info("Customer column index loaded {} customers in {} ms",
+                    size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Customer column index load failed, previews will use Mongo: {}", e.getMessage());
+        }
+    }
+
+    private void refresh(List<String> customerIds) {
+        try {
+            // Raw documents, not Customer entities, so the stored BSON type of lastSeen is visible.
+            List<Document> changed = mongoTemplate.find(
+                    columnsQuery(Query.query(Criteria.where("_id").in(customerIds))), Document.class,
+                    mongoTemplate.getCollectionName(Customer.class));
+            lock.writeLock().lock();
+            try {
+                for (Document doc : changed) {
+                    put(idOf(doc.get("_id")), doc);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh {} customers in the column index: {}", customerIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the customers matching the rule tree, or returns empty when the
+     * index is disabled, still loading, or cannot answer the tree exactly.
+     */
+    public OptionalLong count(RuleNode root) {
+        if (!ready) {
+            return OptionalLong.empty();
+        }
+        if (root != null && !supports(root)) {
+            return OptionalLong.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return OptionalLong.of(size);
+            }
+            return OptionalLong.of(evaluationTimer.record(() -> evaluate(root).getLongCardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Matching customer ordinals; callers must hold the read lock. */
+    private RoaringBitmap evaluate(RuleNode node) {
+        if (node instanceof RuleNode.Predicate p) {
+            return scan(p);
+        }
+        List<RoaringBitmap> children = new ArrayList<>();
+        List<RuleNode> nodes = node instanceof RuleNode.And and ? and.children() : ((RuleNode.Or) node).children();
+        for (RuleNode child : nodes) {
+            children.add(evaluate(child));
+        }
+        return node instanceof RuleNode.And
+                ? FastAggregation.and(children.iterator())
+                : FastAggregation.or(children.iterator());
+    }
+
+    private RoaringBitmap scan(RuleNode.Predicate p) {
+        RoaringBitmapWriter<RoaringBitmap> writer = RoaringBitmapWriter.writer().get();
+        switch (p.field()) {
+            case "totalSpend" -> scanNumeric(totalSpend, p, writer);
+            case "visits" -> scanNumeric(visits, p, writer);
+            case "lastSeen" -> scanDate(lastSeen, p, writer);
+            default -> throw new IllegalStateException("Unsupported column " + p.field());
+        }
+        return writer.get();
+    }
+
+    private void scanNumeric(double[] column, RuleNode.Predicate p, RoaringBitmapWriter<RoaringBitmap> writer) {
+        double value = ((Number) p.value()).doubleValue();
+        int n = size;
+        switch (p.operator()) {
+            case GT -> {
+                for (int i = 0; i < n; i++) {
+                    if (column[i] > value) {
+                        writer.add(i);
+                    }
+                }
+            }
+            case LT -> {
+                for (int i = 0; i < n; i++) {
+                    if (column[i] < value) {
+                        writer.add(i);
+                    }
+                }
+            }
+            case EQ -> {
+                for (int i = 0; i < n; i++) {
+                    if (column[i] == value) {
+                        writer.add(i);
+                    }
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported numeric operator " + p.operator());
+        }
+    }
+
+    private void scanDate(long[] column, RuleNode.Predicate p, RoaringBitmapWriter<RoaringBitmap> writer) {
+        long value = p.operator().isRelative()
+                ? p.cutoff(Instant.now()).toEpochMilli()
+                : ((Instant) p.value()).toEpochMilli();
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            long v = column[i];
+            if (v == ABSENT) {
+                continue;
+            }
+            boolean match = switch (p.operator()) {
+                case GT -> v > value;
+                case LT, OLDER_THAN_DAYS -> v < value;
+                case EQ -> v == value;
+                case WITHIN_LAST_DAYS -> v >= value;
+            };
+            if (match) {
+                writer.add(i);
+            }
+        }
+    }
+
+    private static boolean supports(RuleNode node) {
+        if (node instanceof RuleNode.Predicate p) {
+            return switch (p.field()) {
+                case "totalSpend", "visits" -> p.value() instanceof Number && !p.operator().isRelative();
+                case "lastSeen" -> p.value() instanceof Instant || p.operator().isRelative();
+                default -> false;
+            };
+        }
+        List<RuleNode> children = node instanceof RuleNode.And and ? and.children() : ((RuleNode.Or) node).children();
+        for (RuleNode child : children) {
+            if (!supports(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Query columnsQuery(Query query) {
+        query.fields().include("totalSpend", "visits", "lastSeen");
+        return query;
+    }
+
+    /** Callers must hold the write lock. */
+    private void put(String id, Document doc) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            ordinal = size++;
+            ensureCapacity(size);
+            ordinals.put(id, ordinal);
+        }
+        totalSpend[ordinal] = doc.get("totalSpend") instanceof Number n ? n.doubleValue() : Double.NaN;
+        visits[ordinal] = doc.get("visits") instanceof Number n ? n.doubleValue() : Double.NaN;
+        // Mongo never matches a string against a date, so legacy string values stay absent here too.
+        lastSeen[ordinal] = doc.get("lastSeen") instanceof Date date ? date.getTime() : ABSENT;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= lastSeen.length) {
+            return;
+        }
+        int capacity = Math.max(required, lastSeen.length * 2);
+        totalSpend = Arrays.copyOf(totalSpend, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,200 @@
+package com.xeno.crm_backend.segment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.bson.Document;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Stable, dense integer ordinals for customer ids, persisted in
+ * {@code customer_ordinals} so bitmaps saved with a campaign stay meaningful
+ * across restarts. New ordinals are reserved in blocks from a counter in
+ * {@code sequences}. Only recently used mappings are kept in memory, in two
+ * bounded caches; misses are looked up a chunk at a time, and nothing is
+ * locked while an audience streams through.
+ */
+@Component
+public class CustomerOrdinals {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerOrdinals.class);
+
+    private static final String COLLECTION = "customer_ordinals";
+    private static final String SEQUENCES = "sequences";
+    private static final String SEQUENCE_ID = "customer_ordinal";
+    private static final int CHUNK = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, Integer> ordinalsById;
+    private final Cache<Integer, String> idsByOrdinal;
+
+    public CustomerOrdinals(MongoTemplate mongoTemplate,
+                            @Value("${segment.ordinal-cache.max-size:100000}") long cacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.ordinalsById = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        this.idsByOrdinal = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /** Ordinal to id lookups during segment delivery go through this index. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        Thread.ofVirtual().name("customer-ordinals-index").start(() -> {
+            try {
+                mongoTemplate.indexOps(COLLECTION).createIndex(new Index("ordinal", Sort.Direction.ASC).unique());
+            } catch (RuntimeException e) {
+                log.warn("Could not ensure ordinal index on {}: {}", COLLECTION, e.getMessage());
+            }
+        });
+    }
+
+    /** Maps every id to its ordinal, assigning ordinals to ids seen for the first time. */
+    public RoaringBitmap toBitmap(Stream<String> customerIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        List<String> chunk = new ArrayList<>(CHUNK);
+        Iterator<String> it = customerIds.iterator();
+        while (it.hasNext()) {
+            chunk.add(it.next());
+            if (chunk.size() == CHUNK) {
+                addChunk(chunk, bitmap);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addChunk(chunk, bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Customer ids of the bitmap in ordinal order, resolved {@value #CHUNK} at a time. */
+    public Stream<String> ids(RoaringBitmap audience) {
+        IntIterator ordinals = audience.getIntIterator();
+        Iterator<String> ids = new Iterator<>() {
+            private Iterator<String> chunk = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext() && ordinals.hasNext()) {
+                    List<Integer> next = new ArrayList<>(CHUNK);
+                    while (next.size() < CHUNK && ordinals.hasNext()) {
+                        next.add(ordinals.next());
+                    }
+                    Map<Integer, String> resolved = idsAt(next);
+                    chunk = next.stream().map(resolved::get).filter(Objects::nonNull).iterator();
+                }
+                return chunk.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /** Returns the ordinal for the id, or -1 when it has never been assigned one. */
+    public int ordinalOf(String customerId) {
+        return ordinalsOf(List.of(customerId)).getOrDefault(customerId, -1);
+    }
+
+    private void addChunk(List<String> ids, RoaringBitmap bitmap) {
+        Map<String, Integer> known = ordinalsOf(ids);
+        known.values().forEach(bitmap::add);
+        List<String> unknown = new ArrayList<>();
+        for (String id : ids) {
+            if (!known.containsKey(id)) {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            assign(unknown).values().forEach(bitmap::add);
+        }
+    }
+
+    private Map<String, Integer> ordinalsOf(Collection<String> ids) {
+        Map<String, Integer> result = new HashMap<>(ordinalsById.getAllPresent(ids));
+        List<String> missing = ids.stream().filter(id -> !result.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            for (Document doc : mongoTemplate.find(Query.query(Criteria.where("_id").in(missing)), Document.class, COLLECTION)) {
+                result.put(doc.getString("_id"), record(doc));
+            }
+        }
+        return result;
+    }
+
+    private Map<Integer, String> idsAt(List<Integer> ordinals) {
+        Map<Integer, String> result = new HashMap<>(idsByOrdinal.getAllPresent(ordinals));
+        List<Integer> missing = ordinals.stream().filter(ordinal -> !result.containsKey(ordinal)).toList();
+        if (!missing.isEmpty()) {
+            for (Document doc : mongoTemplate.find(Query.query(Criteria.where("ordinal").in(missing)), Document.class, COLLECTION)) {
+                result.put(record(doc), doc.getString("_id"));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> assign(List<String> ids) {
+        Document sequence = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(SEQUENCE_ID)),
+                new Update().inc("next", ids.size()),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class, SEQUENCES);
+        long end = ((Number) sequence.get("next")).longValue();
+        int start = Math.toIntExact(end - ids.size());
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (int i = 0; i < ids.size(); i++) {
+            ops.upsert(Query.query(Criteria.where("_id").is(ids.get(i))),
+                    new Update().setOnInsert("ordinal", start + i));
+        }
+        ops.execute();
+
+        // Read back rather than trust the reservation: a concurrent writer may have won an upsert.
+        Map<String, Integer> assigned = new HashMap<>();
+        for (Document doc : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Document.class, COLLECTION)) {
+            assigned.put(doc.getString("_id"), record(doc));
+        }
+        return assigned;
+    }
+
+    private int record(Document doc) {
+        String id = doc.getString("_id");
+        int ordinal = ((Number) doc.get("ordinal")).intValue();
+        ordinalsById.put(id, ordinal);
+        idsByOrdinal.put(ordinal, id);
+        return ordinal;
+    }
+}
@@ -0,0 +1,220 @@
+package com.xeno.crm_backend.segment;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xeno.crm_backend.model.Customer;
+import com.xeno.crm_backend.util.DateValues;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Single place where the segment builder's rule format
+ * ({@code [{field, operator, value, condition}, ...]}) is turned into a Mongo
+ * query. Rules are folded left to right as before, i.e.
+ * {@code ((r0 c1 r1) c2 r2) ...}, but runs of the same condition are flattened
+ * into one n-ary node instead of a deep nested tree. Compiled criteria are
+ * cached by the hash of the canonical tree; trees with relative date
+ * predicates keep the tree and rebuild their criteria on every query.
+ */
+@Component
+public class RuleCompiler {
+
+    private static final Map<String, Class<?>> CUSTOMER_FIELDS = customerFields();
+
+    private final Cache<String, CompiledSegment> compiled;
+    private final Timer compileTimer;
+
+    public RuleCompiler(MeterRegistry registry, @Value("${segment.compiled-cache-size:10000}") long cacheSize) {
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, compiled, "segment.compiled");
+        this.compileTimer = Timer.builder("crm.segment.compile")
+                .description("Parsing, normalizing and hashing a rule set, including the compiled-cache lookup")
+                .register(registry);
+    }
+
+    public CompiledSegment compile(List<Map<String, Object>> rules) {
+        return compileTimer.record(() -> {
+            RuleNode root = parse(rules);
+            String key = hash(root != null ? root.canonical() : "ALL");
+            return compiled.get(key, k -> new CompiledSegment(k, root));
+        });
+    }
+
+    public static RuleNode parse(List<Map<String, Object>> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return null;
+        }
+        RuleNode combined = null;
+        for (int i = 0; i < rules.size(); i++) {
+            Map<String, Object> rule = rules.get(i);
+            RuleNode predicate = predicate(rule);
+            if (i == 0) {
+                combined = predicate;
+            } else if ("AND".equalsIgnoreCase((String) rule.get("condition"))) {
+                combined = and(combined, predicate);
+            } else {
+                combined = or(combined, predicate);
+            }
+        }
+        return normalize(combined);
+    }
+
+    private static RuleNode predicate(Map<String, Object> rule) {
+        String field = (String) rule.get("field");
+        Class<?> type = CUSTOMER_FIELDS.get(field);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown rule field: " + field);
+        }
+        RuleNode.Operator operator = RuleNode.Operator.fromSymbol((String) rule.get("operator"));
+        Object value = rule.get("value");
+        if (value == null) {
+            throw new IllegalArgumentException("Rule value cannot be null");
+        }
+        if (operator.isRelative()) {
+            if (type != Instant.class) {
+                throw new IllegalArgumentException(operator.symbol() + " only applies to date fields, not " + field);
+            }
+            double days = (Double) coerce(field, Double.class, value);
+            if (days < 0) {
+                throw new IllegalArgumentException("Rule value for " + field + " must not be negative: " + value);
+            }
+            return new RuleNode.Predicate(field, operator, (long) days);
+        }
+        return new RuleNode.Predicate(field, operator, coerce(field, type, value));
+    }
+
+    private static Object coerce(String field, Class<?> type, Object value) {
+        if (Number.class.isAssignableFrom(type)) {
+            if (value instanceof Number n) {
+                return n.doubleValue();
+            }
+            try {
+                return Double.valueOf(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Rule value for " + field + " must be numeric: " + value);
+            }
+        }
+        if (type == Instant.class) {
+            Instant instant = DateValues.toInstantOrNull(value);
+            if (instant == null) {
+                throw new IllegalArgumentException("Rule value for " + field + " must be a date: " + value);
+            }
+            return instant;
+        }
+        return value.toString();
+    }
+
+    private static RuleNode and(RuleNode left, RuleNode right) {
+        List<RuleNode> children = new ArrayList<>();
+        if (left instanceof RuleNode.And and) {
+            children.addAll(and.children());
+        } else {
+            children.add(left);
+        }
+        children.add(right);
+        return new RuleNode.And(children);
+    }
+
+    private static RuleNode or(RuleNode left, RuleNode right) {
+        List<RuleNode> children = new ArrayList<>();
+        if (left instanceof RuleNode.Or or) {
+            children.addAll(or.children());
+        } else {
+            children.add(left);
+        }
+        children.add(right);
+        return new RuleNode.Or(children);
+    }
+
+    /** Sorts and de-duplicates children so equivalent trees share one canonical form. */
+    private static RuleNode normalize(RuleNode node) {
+        if (node instanceof RuleNode.And and) {
+            List<RuleNode> children = canonicalChildren(and.children());
+            return children.size() == 1 ? children.get(0) : new RuleNode.And(children);
+        }
+        if (node instanceof RuleNode.Or or) {
+            List<RuleNode> children = canonicalChildren(or.children());
+            return children.size() == 1 ? children.get(0) : new RuleNode.Or(children);
+        }
+        return node;
+    }
+
+    private static List<RuleNode> canonicalChildren(List<RuleNode> children) {
+        return children.stream()
+                .map(RuleCompiler::normalize)
+                .sorted(Comparator.comparing(RuleNode::canonical))
+                .distinct()
+                .toList();
+    }
+
+    /** Builds the Mongo criteria for a tree, resolving relative date predicates against {@code now}. */
+    static Criteria toCriteria(RuleNode node, Instant now) {
+        if (node instanceof RuleNode.Predicate p) {
+            Criteria where = Criteria.where(p.field());
+            // Dates go out as java.util.Date so the filter also survives Document.toJson() in the delivery journal.
+            Object value = p.value() instanceof Instant instant ? Date.from(instant) : p.value();
+            return switch (p.operator()) {
+                case GT -> where.gt(value);
+                case LT -> where.lt(value);
+                case EQ -> where.is(value);
+                case OLDER_THAN_DAYS -> where.lt(Date.from(p.cutoff(now)));
+                case WITHIN_LAST_DAYS -> where.gte(Date.from(p.cutoff(now)));
+            };
+        }
+        if (node instanceof RuleNode.And and) {
+            return new Criteria().andOperator(and.children().stream().map(c -> toCriteria(c, now)).toList());
+        }
+        RuleNode.Or or = (RuleNode.Or) node;
+        return new Criteria().orOperator(or.children().stream().map(c -> toCriteria(c, now)).toList());
+    }
+
+    static boolean isRelative(RuleNode node) {
+        if (node instanceof RuleNode.Predicate p) {
+            return p.operator().isRelative();
+        }
+        List<RuleNode> children = node instanceof RuleNode.And and ? and.children() : ((RuleNode.Or) node).children();
+        return children.stream().anyMatch(RuleCompiler::isRelative);
+    }
+
+    private static String hash(String canonical) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Class<?>> customerFields() {
+        Map<String, Class<?>> fields = new HashMap<>();
+        for (Field field : Customer.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !"id".equals(field.getName())) {
+                fields.put(field.getName(), field.getType());
+            }
+        }
+        return Map.copyOf(fields);
+    }
+}
@@ -0,0 +1,76 @@
+package com.xeno.crm_backend.segment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Typed form of an audience rule set. Boolean nodes are n-ary and flattened,
+ * and their children are kept in canonical order, so two rule sets that mean
+ * the same thing produce the same {@link #canonical()} string.
+ */
+public sealed interface RuleNode {
+
+    String canonical();
+
+    enum Operator {
+        GT(">"), LT("<"), EQ("="),
+        /** Date field is more than {@code value} days before the time the query runs. */
+        OLDER_THAN_DAYS("olderThanDays"),
+        /** Date field falls within the last {@code value} days. */
+        WITHIN_LAST_DAYS("withinLastDays");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /** Relative operators are resolved against the clock each time the segment is queried. */
+        public boolean isRelative() {
+            return this == OLDER_THAN_DAYS || this == WITHIN_LAST_DAYS;
+        }
+
+        public static Operator fromSymbol(String symbol) {
+            for (Operator op : values()) {
+                if (op.symbol.equals(symbol)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Invalid operator: " + symbol);
+        }
+    }
+
+    record Predicate(String field, Operator operator, Object value) implements RuleNode {
+
+        /** Absolute bound of a relative predicate, e.g. now minus 90 days for {@code olderThanDays 90}. */
+        public Instant cutoff(Instant now) {
+            return now.minus(Duration.ofDays(((Number) value).longValue()));
+        }
+
+        @Override
+        public String canonical() {
+            String type = value instanceof Number ? "n" : value instanceof Instant ? "d" : "s";
+            return field + operator.symbol() + type + ":" + value;
+        }
+    }
+
+    record And(List<RuleNode> children) implements RuleNode {
+        @Override
+        public String canonical() {
+            return children.stream().map(RuleNode::canonical).collect(Collectors.joining(",", "AND(", ")"));
+        }
+    }
+
+    record Or(List<RuleNode> children) implements RuleNode {
+        @Override
+        public String canonical() {
+            return children.stream().map(RuleNode::canonical).collect(Collectors.joining(",", "OR(", ")"));
+        }
+    }
+}
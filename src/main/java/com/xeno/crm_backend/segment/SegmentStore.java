@@ -0,0 +1,142 @@
+package com.xeno.crm_backend.segment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xeno.crm_backend.delivery.AudienceSource;
+import com.xeno.crm_backend.model.Campaign;
+import com.xeno.crm_backend.repository.CampaignRepository;
+
+/**
+ * Materializes campaign audiences as compressed bitmaps of customer ordinals
+ * and answers set operations between saved segments in memory.
+ */
+@Component
+public class SegmentStore {
+
+    public enum Operation { UNION, INTERSECT, DIFFERENCE }
+
+    /** Key marking a delivery audience descriptor that refers to a saved segment. */
+    public static final String SEGMENT_KEY = "$segment";
+    public static final String EXCLUDE_KEY = "$exclude";
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+    private final AudienceSource audienceSource;
+    private final CustomerOrdinals ordinals;
+    private final CampaignRepository campaignRepository;
+    private final Cache<String, RoaringBitmap> bitmaps = Caffeine.newBuilder().maximumSize(256).build();
+
+    public SegmentStore(AudienceSource audienceSource, CustomerOrdinals ordinals, CampaignRepository campaignRepository) {
+        this.audienceSource = audienceSource;
+        this.ordinals = ordinals;
+        this.campaignRepository = campaignRepository;
+    }
+
+    /**
+     * Materializes a saved campaign's segment on a background thread and saves
+     * the campaign again once the bitmap is set; until then the campaign has no
+     * materialized segment and segment deliveries for it are rejected.
+     */
+    public void materializeInBackground(Campaign campaign, CompiledSegment segment) {
+        Thread.ofVirtual().name("segment-materialize-" + campaign.getId()).start(() -> {
+            try {
+                materialize(campaign, segment);
+                campaignRepository.save(campaign);
+            } catch (RuntimeException e) {
+                log.error("Materializing segment for campaign {} failed", campaign.getId(), e);
+            }
+        });
+    }
+
+    /** Runs the compiled segment once and stores the resulting bitmap on the campaign. */
+    public void materialize(Campaign campaign, CompiledSegment segment) {
+        RoaringBitmap bitmap;
+        try (Stream<String> ids = audienceSource.open(segment.toQuery())) {
+            bitmap = ordinals.toBitmap(ids);
+        }
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+
+        campaign.setSegmentKey(segment.getKey());
+        campaign.setSegmentBitmap(buffer.array());
+        campaign.setAudienceSize(bitmap.getLongCardinality());
+        campaign.setSegmentMaterializedAt(LocalDateTime.now());
+        if (campaign.getId() != null) {
+            bitmaps.invalidate(campaign.getId());
+        }
+    }
+
+    public RoaringBitmap load(String campaignId) {
+        return bitmaps.get(campaignId, id -> {
+            Campaign campaign = campaignRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown campaign: " + id));
+            if (campaign.getSegmentBitmap() == null) {
+                throw new IllegalArgumentException("Campaign " + id + " has no materialized segment");
+            }
+            RoaringBitmap bitmap = new RoaringBitmap();
+            try {
+                bitmap.deserialize(ByteBuffer.wrap(campaign.getSegmentBitmap()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bitmap;
+        });
+    }
+
+    public RoaringBitmap combine(Operation operation, List<String> campaignIds) {
+        if (campaignIds == null || campaignIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one campaignId is required");
+        }
+        List<RoaringBitmap> segments = new ArrayList<>(campaignIds.size());
+        for (String campaignId : campaignIds) {
+            segments.add(load(campaignId));
+        }
+        return switch (operation) {
+            case UNION -> FastAggregation.or(segments.iterator());
+            case INTERSECT -> FastAggregation.and(segments.iterator());
+            case DIFFERENCE -> RoaringBitmap.andNot(segments.get(0),
+                    FastAggregation.or(segments.subList(1, segments.size()).iterator()));
+        };
+    }
+
+    public static Document descriptor(String campaignId, List<String> excludeCampaignIds) {
+        return new Document(SEGMENT_KEY, campaignId)
+                .append(EXCLUDE_KEY, excludeCampaignIds != null ? excludeCampaignIds : List.of());
+    }
+
+    /**
+     * Streams customer ids of the segment described by {@link #descriptor}, in
+     * ordinal order, skipping everything up to and including {@code afterCustomerId}.
+     */
+    public Stream<String> open(Document descriptor, String afterCustomerId) {
+        List<String> ids = new ArrayList<>();
+        ids.add(descriptor.getString(SEGMENT_KEY));
+        ids.addAll(descriptor.getList(EXCLUDE_KEY, String.class, List.of()));
+        RoaringBitmap audience = combine(Operation.DIFFERENCE, ids);
+
+        if (afterCustomerId != null) {
+            int after = ordinals.ordinalOf(afterCustomerId);
+            if (after >= 0) {
+                audience = audience.clone();
+                audience.remove(0L, after + 1L);
+            }
+        }
+        return ordinals.ids(audience);
+    }
+}
@@ -0,0 +1,123 @@
+package com.xeno.crm_backend.stats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.CommunicationLog;
+
+/**
+ * Computes campaign statistics inside Mongo with a $match/$group pipeline over
+ * {@code communication_log}, optionally bucketed by minute or hour so callers
+ * can chart delivery throughput. Served by the
+ * {@code (campaignId, status, timestamp)} index.
+ */
+@Component
+public class CampaignStatsAggregator {
+
+    public enum Bucket {
+        MINUTE("%Y-%m-%dT%H:%M", 60),
+        HOUR("%Y-%m-%dT%H:00", 3600);
+
+        private final String format;
+        private final int seconds;
+
+        Bucket(String format, int seconds) {
+            this.format = format;
+            this.seconds = seconds;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    public CampaignStatsAggregator(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Map<String, Object> aggregate(String campaignId, Bucket bucket) {
+        String collection = mongoTemplate.getCollectionName(CommunicationLog.class);
+        Map<String, Long> byStatus = new HashMap<>();
+
+        if (bucket == null) {
+            Aggregation aggregation = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("campaignId").is(campaignId)),
+                    Aggregation.group("status").count().as("count"));
+            for (Document row : mongoTemplate.aggregate(aggregation, collection, Document.class)) {
+                byStatus.merge(String.valueOf(row.get("_id")), count(row), Long::sum);
+            }
+            return summary(campaignId, byStatus);
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("campaignId").is(campaignId)),
+                Aggregation.project("status")
+                        .and(DateOperators.dateOf("timestamp").toString(bucket.format)).as("bucket"),
+                Aggregation.group("bucket", "status").count().as("count"),
+                Aggregation.sort(Sort.Direction.ASC, "_id.bucket"));
+
+        Map<String, Map<String, Object>> series = new LinkedHashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, collection, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            String status = String.valueOf(key.get("status"));
+            long count = count(row);
+            byStatus.merge(status, count, Long::sum);
+
+            Map<String, Object> point = series.computeIfAbsent(key.getString("bucket"), b -> {
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("bucket", b);
+                p.put("sent", 0L);
+                p.put("failed", 0L);
+                p.put("total", 0L);
+                return p;
+            });
+            if ("SENT".equalsIgnoreCase(status)) {
+                point.merge("sent", count, (a, b) -> (Long) a + (Long) b);
+            } else if ("FAILED".equalsIgnoreCase(status)) {
+                point.merge("failed", count, (a, b) -> (Long) a + (Long) b);
+            }
+            point.merge("total", count, (a, b) -> (Long) a + (Long) b);
+        }
+
+        List<Map<String, Object>> points = new ArrayList<>(series.values());
+        for (Map<String, Object> point : points) {
+            point.put("perSecond", (Long) point.get("total") / (double) bucket.seconds);
+        }
+
+        Map<String, Object> result = summary(campaignId, byStatus);
+        result.put("bucket", bucket.name().toLowerCase());
+        result.put("series", points);
+        return result;
+    }
+
+    private static Map<String, Object> summary(String campaignId, Map<String, Long> byStatus) {
+        long sent = 0;
+        long failed = 0;
+        for (Map.Entry<String, Long> entry : byStatus.entrySet()) {
+            if ("SENT".equalsIgnoreCase(entry.getKey())) {
+                sent += entry.getValue();
+            } else if ("FAILED".equalsIgnoreCase(entry.getKey())) {
+                failed += entry.getValue();
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("campaignId", campaignId);
+        result.put("sent", sent);
+        result.put("failed", failed);
+        result.put("byStatus", byStatus);
+        return result;
+    }
+
+    private static long count(Document row) {
+        return ((Number) row.get("count")).longValue();
+    }
+}
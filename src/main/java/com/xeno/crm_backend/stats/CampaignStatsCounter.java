@@ -0,0 +1,180 @@
+package com.xeno.crm_backend.stats;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.xeno.crm_backend.model.Campaign;
+import com.xeno.crm_backend.model.CampaignStats;
+import com.xeno.crm_backend.model.CommunicationLog;
+import com.xeno.crm_backend.pubsub.DeliveryEvent;
+import com.xeno.crm_backend.pubsub.DeliveryEventSubscriber;
+import com.xeno.crm_backend.repository.CampaignStatsRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps per-campaign SENT/FAILED counters up to date as delivery events arrive.
+ * Increments land in in-memory {@link LongAdder}s and are periodically folded
+ * into the {@code campaign_stats} collection with {@code $inc}, so reading a
+ * campaign's stats is a single document lookup plus the unflushed deltas.
+ */
+@Component
+public class CampaignStatsCounter implements DeliveryEventSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(CampaignStatsCounter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final CampaignStatsRepository statsRepository;
+    private final Map<String, Counters> pending = new ConcurrentHashMap<>();
+
+    public CampaignStatsCounter(MongoTemplate mongoTemplate, CampaignStatsRepository statsRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.statsRepository = statsRepository;
+    }
+
+    @Override
+    public void onEvents(List<DeliveryEvent> events) {
+        for (DeliveryEvent event : events) {
+            record(event.getCampaignId(), event.getStatus());
+        }
+    }
+
+    public void record(String campaignId, String status) {
+        if (campaignId == null || status == null) {
+            return;
+        }
+        Counters counters = pending.computeIfAbsent(campaignId, id -> new Counters());
+        if ("SENT".equalsIgnoreCase(status)) {
+            counters.sent.increment();
+        } else if ("FAILED".equalsIgnoreCase(status)) {
+            counters.failed.increment();
+        }
+    }
+
+    /** Returns the campaign's counters, or null when no such campaign exists. */
+    public Map<String, Long> getStats(String campaignId) {
+        long sent = 0;
+        long failed = 0;
+        CampaignStats stored = statsRepository.findById(campaignId).orElse(null);
+        if (stored == null && !pending.containsKey(campaignId)) {
+            if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(campaignId)), Campaign.class)) {
+                return null;
+            }
+            // Campaigns delivered before counters existed get seeded from the log once.
+            rebuild(campaignId);
+            stored = statsRepository.findById(campaignId).orElse(null);
+        }
+        if (stored != null) {
+            sent = stored.getSent();
+            failed = stored.getFailed();
+        }
+        Counters unflushed = pending.get(campaignId);
+        if (unflushed != null) {
+            sent += unflushed.sent.sum();
+            failed += unflushed.failed.sum();
+        }
+
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("sent", sent);
+        stats.put("failed", failed);
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${campaign-stats.flush-interval-ms:1000}")
+    public void flush() {
+        Map<String, long[]> drained = new HashMap<>();
+        for (Map.Entry<String, Counters> entry : pending.entrySet()) {
+            long sent = entry.getValue().sent.sumThenReset();
+            long failed = entry.getValue().failed.sumThenReset();
+            if (sent != 0 || failed != 0) {
+                drained.put(entry.getKey(), new long[] {sent, failed});
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CampaignStats.class);
+        drained.forEach((campaignId, counts) -> ops.upsert(Query.query(Criteria.where("_id").is(campaignId)),
+                new Update().inc("sent", counts[0]).inc("failed", counts[1]).set("updatedAt", now)));
+        try {
+            ops.execute();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush stats for {} campaigns, retrying next cycle", drained.size(), e);
+            drained.forEach((campaignId, counts) -> {
+                Counters counters = pending.computeIfAbsent(campaignId, id -> new Counters());
+                counters.sent.add(counts[0]);
+                counters.failed.add(counts[1]);
+            });
+        }
+    }
+
+    /**
+     * Recomputes stored counters from {@code communication_log}, for one
+     * campaign or all of them when {@code campaignId} is null. Run it while the
+     * campaign is idle: logs still in the write-behind buffer are not counted.
+     */
+    public int rebuild(String campaignId) {
+        flush();
+        Criteria match = campaignId != null ? Criteria.where("campaignId").is(campaignId) : new Criteria();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.group("campaignId", "status").count().as("count"));
+
+        Map<String, long[]> totals = new HashMap<>();
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(CommunicationLog.class), Document.class)) {
+            rows.forEach(row -> {
+                Document key = row.get("_id", Document.class);
+                String status = key.getString("status");
+                long[] counts = totals.computeIfAbsent(key.getString("campaignId"), id -> new long[2]);
+                if ("SENT".equalsIgnoreCase(status)) {
+                    counts[0] += ((Number) row.get("count")).longValue();
+                } else if ("FAILED".equalsIgnoreCase(status)) {
+                    counts[1] += ((Number) row.get("count")).longValue();
+                }
+            });
+        }
+        if (campaignId != null) {
+            totals.putIfAbsent(campaignId, new long[2]);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CampaignStats.class);
+        totals.forEach((id, counts) -> ops.upsert(Query.query(Criteria.where("_id").is(id)),
+                new Update().set("sent", counts[0]).set("failed", counts[1]).set("updatedAt", now)));
+        if (!totals.isEmpty()) {
+            ops.execute();
+        }
+        log.info("Rebuilt campaign stats for {} campaigns", totals.size());
+        return totals.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Counters {
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+}
@@ -0,0 +1,61 @@
+package com.xeno.crm_backend.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * Lenient conversion of the date shapes clients and legacy documents use for
+ * {@code lastSeen} and {@code orderDate}: epoch millis, ISO instants or offset
+ * date-times, and ISO local date-times or dates (read as UTC).
+ */
+public final class DateValues {
+
+    private DateValues() {}
+
+    public static Instant toInstant(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Date date) {
+            return date.toInstant();
+        }
+        if (value instanceof Number n) {
+            return Instant.ofEpochMilli(n.longValue());
+        }
+        String s = value.toString().trim();
+        if (s.isEmpty()) {
+            return null;
+        }
+        try {
+            if (s.chars().allMatch(Character::isDigit) && s.length() > 8) {
+                return Instant.ofEpochMilli(Long.parseLong(s));
+            }
+            if (s.length() <= 10) {
+                return LocalDate.parse(s).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            if (s.endsWith("Z") || s.matches(".*[+-]\\d{2}:?\\d{2}$")) {
+                return OffsetDateTime.parse(s).toInstant();
+            }
+            return LocalDateTime.parse(s).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid date: " + s);
+        }
+    }
+
+    /** Like {@link #toInstant} but returns null for values that cannot be parsed. */
+    public static Instant toInstantOrNull(Object value) {
+        try {
+            return toInstant(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
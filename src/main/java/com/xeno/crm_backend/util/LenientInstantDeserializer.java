@@ -0,0 +1,23 @@
+package com.xeno.crm_backend.util;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+/** Reads {@link Instant} fields from any shape {@link DateValues} accepts. */
+public class LenientInstantDeserializer extends JsonDeserializer<Instant> {
+
+    @Override
+    public Instant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        Object value = parser.currentToken() == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : parser.getText();
+        try {
+            return DateValues.toInstant(value);
+        } catch (IllegalArgumentException e) {
+            return (Instant) context.handleWeirdStringValue(Instant.class, parser.getText(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.xeno.crm_backend.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket refilled at {@code ratePerSecond} up to {@code burst} tokens. A
+ * caller asking for more tokens than are available reserves them (the balance goes
+ * negative) and sleeps until the refill covers the debt, so large batches are
+ * admitted in order without starving. A rate of zero or less disables limiting;
+ * rate and burst can be changed while callers are waiting. Shared by vendor
+ * delivery throttling and background jobs that pace their writes.
+ */
+public final class TokenBucket {
+
+    private volatile double ratePerSecond;
+    private volatile double burst;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    public double getRate() {
+        return ratePerSecond;
+    }
+
+    public double getBurst() {
+        return burst;
+    }
+
+    public void setRate(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public void setBurst(double burst) {
+        this.burst = Math.max(1, burst);
+    }
+
+    /** Takes {@code permits} tokens, sleeping while the bucket is in debt. */
+    public void acquire(int permits) throws InterruptedException {
+        double rate = ratePerSecond;
+        if (rate <= 0 || permits <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / 1_000_000_000d);
+            lastRefillNanos = now;
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * 1_000_000_000d / rate);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
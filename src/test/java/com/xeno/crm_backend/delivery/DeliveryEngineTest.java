@@ -0,0 +1,184 @@
+package com.xeno.crm_backend.delivery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs in its own surefire execution with a 48 MB heap (see pom.xml), which is
+ * far too small to hold a million materialized recipients.
+ */
+@Tag("bounded-heap")
+class DeliveryEngineTest {
+
+    private static final int AUDIENCE = 1_000_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_IN_FLIGHT = 8;
+
+    @Test
+    void deliversMillionRecipientsWithBoundedInFlightWork() throws InterruptedException {
+        AtomicLong outstanding = new AtomicLong();
+        AtomicLong peakOutstanding = new AtomicLong();
+
+        AudienceSource synthetic = audience -> IntStream.range(0, AUDIENCE)
+                .mapToObj(i -> "customer-" + i)
+                .peek(id -> peakOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max));
+
+        VendorClient vendor = new VendorClient() {
+            @Override
+            public BatchResult send(String campaignId, List<String> customerIds) {
+                outstanding.addAndGet(-customerIds.size());
+                return new BatchResult(customerIds.size(), 0);
+            }
+        };
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeliveryEngine engine = new DeliveryEngine(synthetic, null, vendor, throttle(), Optional.empty(), jobStore(),
+                registry, BATCH_SIZE, MAX_IN_FLIGHT, 1000);
+        try {
+            DeliveryJob job = engine.submit("campaign-1", new Query());
+            awaitSettled(job);
+
+            assertEquals(DeliveryJob.State.COMPLETED, job.getState());
+            assertEquals(AUDIENCE, job.getSent());
+            assertEquals(AUDIENCE / BATCH_SIZE, job.getBatches());
+            assertEquals(AUDIENCE, registry.get("crm.delivery.recipients").tag("result", "sent").counter().count());
+            assertEquals(AUDIENCE / BATCH_SIZE,
+                    registry.get("crm.delivery.batch").tag("outcome", "success").timer().count());
+            assertTrue(peakOutstanding.get() <= (long) BATCH_SIZE * (MAX_IN_FLIGHT + 1),
+                    "producer ran ahead of the sender: " + peakOutstanding.get() + " recipients outstanding");
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void resumesAfterThePausedCheckpointWithoutResending() throws InterruptedException {
+        int audience = 20_000;
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+        AtomicLong duplicates = new AtomicLong();
+
+        // Ids sort in audience order, like ObjectIds; honours the _id > checkpoint filter on resume.
+        AudienceSource source = query -> {
+            Document after = query.getQueryObject().get("_id", Document.class);
+            String lastId = after != null ? after.getString("$gt") : null;
+            return IntStream.range(0, audience)
+                    .mapToObj(i -> String.format("customer-%06d", i))
+                    .filter(id -> lastId == null || id.compareTo(lastId) > 0);
+        };
+        VendorClient vendor = new VendorClient() {
+            @Override
+            public BatchResult send(String campaignId, List<String> customerIds) {
+                customerIds.forEach(id -> {
+                    if (!delivered.add(id)) {
+                        duplicates.incrementAndGet();
+                    }
+                });
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new BatchResult(customerIds.size(), 0);
+            }
+        };
+
+        DeliveryEngine engine = new DeliveryEngine(source, null, vendor, throttle(), Optional.empty(), jobStore(),
+                new SimpleMeterRegistry(), 100, 4, 0);
+        try {
+            DeliveryJob job = engine.submit("campaign-2", new Query());
+            while (job.getSent() < 2_000) {
+                Thread.sleep(5);
+            }
+            engine.pause(job.getId());
+            awaitSettled(job);
+
+            assertEquals(DeliveryJob.State.PAUSED, job.getState());
+            assertEquals(String.format("customer-%06d", job.getSent() - 1), job.getCheckpoint());
+            assertTrue(job.getSent() < audience);
+            assertThrows(IllegalStateException.class, () -> engine.pause(job.getId()));
+
+            engine.resume(job.getId());
+            awaitSettled(job);
+
+            assertEquals(DeliveryJob.State.COMPLETED, job.getState());
+            assertEquals(audience, job.getSent());
+            assertEquals(audience, delivered.size());
+            assertEquals(0, duplicates.get());
+            assertThrows(IllegalStateException.class, () -> engine.cancel(job.getId()));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void failedJobIsNotResumedFromTheJournal(@TempDir Path directory) throws Exception {
+        AudienceSource failing = query -> IntStream.range(0, 1_000).mapToObj(i -> {
+            if (i == 250) {
+                throw new IllegalStateException("cursor killed");
+            }
+            return "customer-" + i;
+        });
+        VendorClient vendor = new VendorClient() {
+            @Override
+            public BatchResult send(String campaignId, List<String> customerIds) {
+                return new BatchResult(customerIds.size(), 0);
+            }
+        };
+
+        DeliveryJournal journal = new DeliveryJournal(directory.toString(), 1 << 20);
+        journal.open();
+        DeliveryEngine engine = new DeliveryEngine(failing, null, vendor, throttle(), Optional.of(journal), jobStore(),
+                new SimpleMeterRegistry(), 100, 4, 0);
+        try {
+            DeliveryJob job = engine.submit("campaign-3", new Query());
+            awaitSettled(job);
+            assertEquals(DeliveryJob.State.FAILED, job.getState());
+        } finally {
+            engine.shutdown();
+            journal.close();
+        }
+
+        DeliveryJournal recovered = new DeliveryJournal(directory.toString(), 1 << 20);
+        recovered.open();
+        try {
+            assertTrue(recovered.recoveredJobs().isEmpty());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private static VendorThrottle throttle() {
+        return new VendorThrottle(new SimpleMeterRegistry(), 0, 1000, MAX_IN_FLIGHT, 1, MAX_IN_FLIGHT, 60_000, 0);
+    }
+
+    private static DeliveryJobStore jobStore() {
+        return new DeliveryJobStore(mock(MongoTemplate.class));
+    }
+
+    private static void awaitSettled(DeliveryJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (job.getState() == DeliveryJob.State.QUEUED || job.getState() == DeliveryJob.State.RUNNING) {
+            assertTrue(System.currentTimeMillis() < deadline, "delivery did not settle in time");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.xeno.crm_backend.delivery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class DeliveryJobTest {
+
+    @Test
+    void pauseAcceptedWhileDrainingEndsPausedNotCompleted() {
+        DeliveryJob job = new DeliveryJob("job-1", "campaign-1", new Document(), Instant.now());
+        job.markRunning();
+
+        // The producer has already seen no stop request and is waiting for its last batches.
+        assertTrue(job.requestStop(DeliveryJob.StopRequest.PAUSE));
+        assertEquals(DeliveryJob.State.PAUSED, job.finishRun());
+
+        assertTrue(job.resumeFromPause());
+        assertEquals(DeliveryJob.StopRequest.NONE, job.getStopRequest());
+        assertEquals(DeliveryJob.State.COMPLETED, job.finishRun());
+        assertFalse(job.requestStop(DeliveryJob.StopRequest.CANCEL));
+        assertEquals(DeliveryJob.State.COMPLETED, job.getState());
+    }
+}
@@ -0,0 +1,43 @@
+package com.xeno.crm_backend.delivery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeliveryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void crashAfterRolloverKeepsAcksAndJobEndsForOlderSegments() throws Exception {
+        // One byte per segment: every record after the first rolls over into a new segment.
+        DeliveryJournal journal = new DeliveryJournal(directory.toString(), 1);
+        journal.open();
+        DeliveryJournal recovered = null;
+        try {
+            journal.jobStarted("job-a", "campaign-1", "{}");
+            long unacked = journal.appendBatch("job-a", "campaign-1", List.of("c1"));
+            long acked = journal.appendBatch("job-a", "campaign-1", List.of("c2"));
+            journal.ack(acked);
+            journal.jobFinished("job-a");
+            // Durable, so everything queued before it is on disk; the journal is then abandoned without close().
+            journal.jobStarted("job-b", "campaign-2", "{}");
+
+            recovered = new DeliveryJournal(directory.toString(), 1);
+            recovered.open();
+
+            assertEquals(List.of("job-b"), recovered.recoveredJobs().stream().map(DeliveryJournal.RecoveredJob::jobId).toList());
+            assertEquals(List.of(unacked), recovered.recoveredBatches().stream().map(DeliveryJournal.RecoveredBatch::seq).toList());
+        } finally {
+            journal.close();
+            if (recovered != null) {
+                recovered.close();
+            }
+        }
+    }
+}
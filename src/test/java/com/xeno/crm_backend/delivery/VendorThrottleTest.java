@@ -0,0 +1,84 @@
+package com.xeno.crm_backend.delivery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VendorThrottleTest {
+
+    @Test
+    void concurrencyLimitGrowsAdditivelyAndBacksOffMultiplicatively() throws InterruptedException {
+        AdaptiveConcurrencyLimiter growing = new AdaptiveConcurrencyLimiter(4, 1, 100, 0.5, 1_000_000_000L);
+        List<Integer> limits = new ArrayList<>();
+        for (int round = 0; round < 4; round++) {
+            keepWindowFull(growing);
+            limits.add(growing.getLimit());
+        }
+        // About one more call per round trip once the window is full, not a doubling.
+        assertEquals(List.of(4, 5, 6, 7), limits);
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 0.5, 1_000_000_000L);
+        limiter.acquire();
+        limiter.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED, 1_000);
+        assertEquals(5, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, 2_000_000_000L);
+        assertEquals(2, limiter.getLimit());
+
+        limiter.setBounds(3, 6);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void retriesThrottledBatchesAndPacesRecipients() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VendorThrottle throttle = new VendorThrottle(registry, 1_000, 100, 2, 1, 4, 60_000, 3);
+        AtomicInteger calls = new AtomicInteger();
+        VendorClient vendor = new VendorClient() {
+            @Override
+            public BatchResult send(String campaignId, List<String> customerIds) {
+                return calls.incrementAndGet() <= 2
+                        ? new BatchResult(0, customerIds.size(), Outcome.THROTTLED)
+                        : new BatchResult(customerIds.size(), 0);
+            }
+        };
+        List<String> batch = Collections.nCopies(100, "customer");
+
+        VendorClient.BatchResult result = throttle.send(vendor, "campaign-1", batch);
+        assertEquals(VendorClient.Outcome.OK, result.outcome());
+        assertEquals(100, result.sent());
+        assertEquals(2, registry.get("crm.vendor.throttled").counter().count());
+
+        // 1000 recipients/sec with a burst of 100: four more batches of 100 need ~400ms of refill.
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            throttle.send(vendor, "campaign-1", batch);
+        }
+        assertTrue(System.nanoTime() - start >= 300_000_000L, "batches were not paced");
+
+        throttle.update("default", 0.0, null, null, 2);
+        assertEquals(0.0, registry.get("crm.vendor.rate_limit").gauge().value());
+        assertEquals(2.0, registry.get("crm.vendor.concurrency.limit").gauge().value());
+    }
+
+    /** One round trip at full utilisation: every call in the window completes and is replaced. */
+    private static void keepWindowFull(AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            limiter.acquire();
+        }
+        int window = limiter.getLimit();
+        for (int i = 0; i < window; i++) {
+            limiter.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, 1_000);
+            limiter.acquire();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.xeno.crm_backend.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.xeno.crm_backend.segment.RuleCompiler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IndexAdvisorTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new SimpleMeterRegistry(), 100);
+
+    @Test
+    void thresholdsShareOneShapeAndOldShapesAreEvicted() {
+        IndexAdvisor advisor = new IndexAdvisor(mock(MongoTemplate.class), 1_000_000, 2);
+
+        advisor.record(compiler.compile(List.of(rule("totalSpend", ">", 100, null))));
+        advisor.record(compiler.compile(List.of(rule("totalSpend", ">", 1000, null))));
+        advisor.record(compiler.compile(List.of(rule("totalSpend", ">", 5000, null))));
+        assertEquals(1, advisor.report().get("trackedShapes"));
+        assertEquals("AND(totalSpend>,visits<)", IndexAdvisor.shapeOf(compiler.compile(List.of(
+                rule("visits", "<", 3, null), rule("totalSpend", ">", 10, "AND"))).getRoot()));
+
+        advisor.record(compiler.compile(List.of(rule("visits", "<", 3, null))));
+        advisor.record(compiler.compile(List.of(rule("totalSpend", ">", 1, null))));
+        advisor.record(compiler.compile(List.of(rule("visits", "=", 3, null))));
+        assertEquals(2, advisor.report().get("trackedShapes"));
+    }
+
+    private static Map<String, Object> rule(String field, String operator, Object value, String condition) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("field", field);
+        rule.put("operator", operator);
+        rule.put("value", value);
+        rule.put("condition", condition);
+        return rule;
+    }
+}
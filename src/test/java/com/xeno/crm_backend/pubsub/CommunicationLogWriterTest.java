@@ -0,0 +1,62 @@
+package com.xeno.crm_backend.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.xeno.crm_backend.model.CommunicationLog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CommunicationLogWriterTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retriesATransientInsertFailureInsteadOfDroppingTheBatch() throws InterruptedException {
+        List<CommunicationLog> stored = new ArrayList<>();
+        int[] attempts = {0};
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CommunicationLog.class))).thenAnswer(invocation -> {
+            BulkOperations ops = mock(BulkOperations.class);
+            List<CommunicationLog> inserted = new ArrayList<>();
+            when(ops.insert(any(List.class))).thenAnswer(call -> {
+                inserted.addAll((Collection<CommunicationLog>) call.getArgument(0));
+                return ops;
+            });
+            when(ops.execute()).thenAnswer(call -> {
+                if (attempts[0]++ < 2) {
+                    throw new DataAccessResourceFailureException("primary stepped down");
+                }
+                stored.addAll(inserted);
+                return null;
+            });
+            return ops;
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CommunicationLogWriter writer = new CommunicationLogWriter(mongoTemplate, registry, 100, 10, 1_000, 50, 3, 1);
+
+        writer.enqueueAll(List.of(
+                new CommunicationLog("campaign-1", "customer-1", "SENT", LocalDateTime.now()),
+                new CommunicationLog("campaign-1", "customer-2", "FAILED", LocalDateTime.now())));
+        writer.shutdown();
+
+        assertEquals(2, stored.size());
+        assertNotNull(stored.get(0).getId());
+        assertEquals(2, registry.get("crm.communication_log.written").counter().count());
+        assertEquals(4, registry.get("crm.communication_log.retried").counter().count());
+        assertEquals(0, registry.get("crm.communication_log.failed").counter().count());
+    }
+}
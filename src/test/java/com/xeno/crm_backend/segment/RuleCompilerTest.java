@@ -0,0 +1,90 @@
+package com.xeno.crm_backend.segment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RuleCompilerTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(new SimpleMeterRegistry(), 100);
+
+    @Test
+    void flattensRunsOfTheSameCondition() {
+        RuleNode root = RuleCompiler.parse(List.of(
+                rule("totalSpend", ">", 100, null),
+                rule("visits", ">", "3", "AND"),
+                rule("visits", "<", 10, "AND"),
+                rule("totalSpend", ">", 5000, "OR")));
+
+        RuleNode.Or or = assertInstanceOf(RuleNode.Or.class, root);
+        assertEquals(2, or.children().size());
+        RuleNode.And and = assertInstanceOf(RuleNode.And.class, or.children().get(0));
+        assertEquals(3, and.children().size());
+    }
+
+    @Test
+    void equivalentRuleSetsShareOneCompiledSegment() {
+        CompiledSegment first = compiler.compile(List.of(
+                rule("totalSpend", ">", 100, null),
+                rule("visits", ">", 3, "AND")));
+        CompiledSegment reordered = compiler.compile(List.of(
+                rule("visits", ">", "3", null),
+                rule("totalSpend", ">", 100.0, "AND")));
+        CompiledSegment different = compiler.compile(List.of(
+                rule("visits", ">", 3, null),
+                rule("totalSpend", ">", 100, "OR")));
+
+        assertSame(first, reordered);
+        assertNotEquals(first.getKey(), different.getKey());
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndOperators() {
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(rule("password", "=", "x", null))));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(rule("visits", ">=", 3, null))));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(rule("visits", ">", "many", null))));
+    }
+
+    @Test
+    void relativeDateRulesResolveAgainstTheClockOnEveryQuery() {
+        CompiledSegment inactive = compiler.compile(List.of(rule("lastSeen", "olderThanDays", 90, null)));
+
+        assertTrue(inactive.isRelative());
+        Document filter = inactive.toQuery().getQueryObject().get("lastSeen", Document.class);
+        Date cutoff = assertInstanceOf(Date.class, filter.get("$lt"));
+        long expected = Instant.now().minus(Duration.ofDays(90)).toEpochMilli();
+        assertTrue(Math.abs(cutoff.getTime() - expected) < 60_000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(rule("visits", "withinLastDays", 30, null))));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(rule("lastSeen", ">", "last tuesday", null))));
+    }
+
+    private static Map<String, Object> rule(String field, String operator, Object value, String condition) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("field", field);
+        rule.put("operator", operator);
+        rule.put("value", value);
+        rule.put("condition", condition);
+        return rule;
+    }
+}
@@ -0,0 +1,54 @@
+package com.xeno.crm_backend.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.xeno.crm_backend.model.Campaign;
+import com.xeno.crm_backend.model.CampaignStats;
+import com.xeno.crm_backend.repository.CampaignStatsRepository;
+
+class CampaignStatsCounterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CampaignStatsRepository statsRepository = mock(CampaignStatsRepository.class);
+    private final CampaignStatsCounter counter = new CampaignStatsCounter(mongoTemplate, statsRepository);
+
+    @Test
+    void failedFlushKeepsTheDrainedCounts() {
+        BulkOperations ops = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(CampaignStats.class))).thenReturn(ops);
+        when(ops.execute()).thenThrow(new DataAccessResourceFailureException("primary stepped down"));
+        when(statsRepository.findById("campaign-1")).thenReturn(Optional.empty());
+
+        counter.record("campaign-1", "SENT");
+        counter.record("campaign-1", "SENT");
+        counter.record("campaign-1", "FAILED");
+        counter.flush();
+
+        assertEquals(2L, counter.getStats("campaign-1").get("sent"));
+        assertEquals(1L, counter.getStats("campaign-1").get("failed"));
+    }
+
+    @Test
+    void unknownCampaignIsNotSeeded() {
+        when(statsRepository.findById("nope")).thenReturn(Optional.empty());
+        when(mongoTemplate.exists(any(Query.class), eq(Campaign.class))).thenReturn(false);
+
+        assertNull(counter.getStats("nope"));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(CampaignStats.class));
+    }
+}
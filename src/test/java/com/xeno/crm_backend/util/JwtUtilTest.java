@@ -0,0 +1,32 @@
+package com.xeno.crm_backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+
+class JwtUtilTest {
+
+    private static final String SECRET =
+            "crm-jwt-secret-key-must-be-at-least-256-bits-long-for-hs256-algorithm-security-2024";
+
+    @Test
+    void verifiesOnceAndRejectsTamperedOrExpiredTokens() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+        String token = jwtUtil.generateToken("asha@example.com", "Asha", "");
+
+        Claims claims = jwtUtil.verify(token);
+        assertEquals("asha@example.com", claims.getSubject());
+        assertSame(claims, jwtUtil.verify(token));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertNull(jwtUtil.verify(tampered));
+        assertNull(new JwtUtil(SECRET.replace('c', 'k'), 60_000, 100).verify(token));
+
+        JwtUtil expiring = new JwtUtil(SECRET, -1_000, 100);
+        assertNull(expiring.verify(expiring.generateToken("asha@example.com", "Asha", "")));
+    }
+}